@@ -0,0 +1,80 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package projects.chandra_toueg;
+
+import sinalgo.runtime.Main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs simulations without the GUI, one per seed, one after another in this
+ * JVM: after each one the next starts from fresh state (see
+ * <code>CustomGlobal.reset</code>) with new nodes, so the JVM startup, the
+ * configuration parsing and the class loading are paid once. Each simulation
+ * prints its statistics (see <code>SimulationStatistics</code>). It is started
+ * from the Sinalgo directory like Sinalgo itself:
+ *
+ * <pre>
+ * java -cp &lt;Sinalgo classpath&gt; projects.chandra_toueg.BatchSimulation &lt;MSS Nodes&gt; &lt;MH Nodes&gt; &lt;seeds&gt; [key=value ...]
+ * </pre>
+ * <p>
+ * The seeds are separated by commas, and the optional <code>key=value</code>
+ * pairs overwrite entries of <code>Config.xml</code>.
+ */
+public final class BatchSimulation {
+    private BatchSimulation() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.err.println("usage: BatchSimulation <MSS Nodes> <MH Nodes> <seeds> [key=value ...]");
+            System.exit(2);
+        }
+
+        Main.main(arguments(args[0], args[1], args[2], Arrays.asList(args).subList(3, args.length)));
+    }
+
+    // the arguments of Sinalgo for the given simulations: the nodes are generated by CustomGlobal, from the Batch entry
+    public static String[] arguments(String mssNodes, String mhNodes, String seeds, List<String> overwrites) {
+        List<String> arguments = new ArrayList<>(Arrays.asList("-project", "chandra_toueg", "-batch", "-overwrite",//
+                "Batch/mssNodes=" + mssNodes, "Batch/mhNodes=" + mhNodes, "Batch/seeds=" + seeds));
+        arguments.addAll(overwrites);
+        return arguments.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,98 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package projects.chandra_toueg;
+
+import projects.chandra_toueg.nodes.nodeImplementations.MSSNode;
+
+/**
+ * Ways of ranking the MSS Nodes that can coordinate. The coordinators take
+ * turns in the order of the ranking, which <code>NodeRegistry</code> computes
+ * from state shared by every MSS Node, so they all pick the same coordinator
+ * for the same instance and round. The MSS Nodes with the lowest cost come
+ * first, and ties are broken by id.
+ */
+public enum CoordinatorPolicy {
+    // the cost never changes, so the MSS Nodes take turns by id
+    ROUND_ROBIN("roundRobin") {
+        @Override
+        double cost(MSSNode mssNode, NodeRegistry registry) {
+            return 0;
+        }
+    },
+
+    // MSS Nodes with more MH Nodes in their cell hold more of the values to propose
+    MOST_MHS("mostMHs") {
+        @Override
+        double cost(MSSNode mssNode, NodeRegistry registry) {
+            return -mssNode.getCellSize();
+        }
+    },
+
+    // time between sending a proposal to the MSS Node and receiving its try value, MSS Nodes never measured go first
+    LOWEST_LATENCY("lowestLatency") {
+        @Override
+        double cost(MSSNode mssNode, NodeRegistry registry) {
+            return registry.getLatency(mssNode.getID());
+        }
+    },
+
+    // suspicions and round timeouts while the MSS Node was coordinating, fading over time
+    SUSPICION_AWARE("suspicionAware") {
+        @Override
+        double cost(MSSNode mssNode, NodeRegistry registry) {
+            return registry.getSuspicions(mssNode.getID());
+        }
+    };
+
+    private final String name;
+
+    CoordinatorPolicy(String name) {
+        this.name = name;
+    }
+
+    abstract double cost(MSSNode mssNode, NodeRegistry registry);
+
+    public static CoordinatorPolicy fromName(String name) {
+        for (CoordinatorPolicy policy : values()) {
+            if (policy.name.equals(name)) {
+                return policy;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown coordinator policy: " + name);
+    }
+}
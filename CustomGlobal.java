@@ -39,15 +39,23 @@ package projects.chandra_toueg;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import projects.chandra_toueg.nodes.nodeImplementations.MHNode;
+import projects.chandra_toueg.nodes.nodeImplementations.MSSNode;
 import sinalgo.configuration.Configuration;
 import sinalgo.exception.CorruptConfigurationEntryException;
 import sinalgo.exception.SinalgoFatalException;
+import sinalgo.models.DistributionModel;
+import sinalgo.models.Model;
+import sinalgo.nodes.Node;
 import sinalgo.runtime.AbstractCustomGlobal;
 import sinalgo.runtime.Global;
+import sinalgo.runtime.Main;
 import sinalgo.tools.Tools;
 import sinalgo.tools.logging.Logging;
 
 import javax.swing.*;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * This class holds customized global state and methods for the framework. The
@@ -80,7 +88,32 @@ public class CustomGlobal extends AbstractCustomGlobal {
     private boolean exitAfterFixedRounds;
     private int exitAfterNumRounds;
 
+    // In batch mode the simulation stops once every node has decided, after an optional grace period (in rounds).
+    private boolean terminateOnDecision = true;
+    private double terminationGracePeriod = 0;
+
+    // With the replicated log, the simulation stops once this many instances have been decided (0 means never).
+    private int logInstances = 0;
+
+    // Fault injection: the coordinator is removed from the simulation at this time (negative means never).
+    private double removeCoordinatorAt = -1;
+
+    // In batch mode, one simulation per seed of Batch/seeds runs in this JVM, one after another (see BatchSimulation),
+    // each one with batchMSSNodes MSS Nodes and batchMHNodes MH Nodes. nextSeed is the index of the next one to run.
+    private final List<Long> batchSeeds = new ArrayList<>();
+    private int nextSeed = 0;
+    private int batchMSSNodes;
+    private int batchMHNodes;
+
+    // budgets exceeded by the simulations run so far, reported when the JVM exits
+    private final List<String> violations = new ArrayList<>();
+
     {
+        configure();
+    }
+
+    // reads the custom configuration, into this object and into the state shared by the nodes of the simulation
+    private void configure() {
         if (Configuration.hasParameter("exitAfter")) {
             try {
                 this.setExitAfterFixedRounds(Configuration.getBooleanParameter("exitAfter"));
@@ -98,19 +131,126 @@ public class CustomGlobal extends AbstractCustomGlobal {
         } else {
             this.setExitAfterFixedRounds(false);
         }
+
+        try {
+            if (Configuration.hasParameter("Termination/onAllDecided")) {
+                this.setTerminateOnDecision(Configuration.getBooleanParameter("Termination/onAllDecided"));
+            }
+            if (Configuration.hasParameter("Termination/gracePeriod")) {
+                this.setTerminationGracePeriod(Configuration.getDoubleParameter("Termination/gracePeriod"));
+            }
+        } catch (CorruptConfigurationEntryException e) {
+            throw new SinalgoFatalException("The 'Termination' entry needs a valid boolean 'onAllDecided' and a valid number 'gracePeriod'.");
+        }
+
+        try {
+            if (Configuration.hasParameter("Coordinator/stableLeader")) {
+                NodeRegistry.getInstance().setStableLeader(Configuration.getBooleanParameter("Coordinator/stableLeader"));
+            }
+            if (Configuration.hasParameter("Coordinator/policy")) {
+                NodeRegistry.getInstance().setCoordinatorPolicy(CoordinatorPolicy.fromName(Configuration.getStringParameter("Coordinator/policy")));
+                NodeRegistry.getInstance().setRankingInterval(Configuration.getDoubleParameter("Coordinator/rankingInterval"));
+            }
+        } catch (CorruptConfigurationEntryException | IllegalArgumentException e) {
+            throw new SinalgoFatalException("The 'Coordinator' entry needs a valid boolean 'stableLeader', a valid 'policy' (roundRobin, mostMHs, lowestLatency or "
+                    + "suspicionAware) and a valid number 'rankingInterval'.");
+        }
+
+        try {
+            if (Configuration.hasParameter("Hierarchy/enabled") && Configuration.getBooleanParameter("Hierarchy/enabled")) {
+                NodeRegistry.getInstance().setRegionSize(Configuration.getDoubleParameter("Hierarchy/regionSize"));
+            }
+        } catch (CorruptConfigurationEntryException e) {
+            throw new SinalgoFatalException("The 'Hierarchy' entry needs a valid boolean 'enabled' and a valid number 'regionSize'.");
+        }
+
+        try {
+            if (Configuration.hasParameter("ReplicatedLog/instances")) {
+                this.setLogInstances(Configuration.getIntegerParameter("ReplicatedLog/instances"));
+            }
+        } catch (CorruptConfigurationEntryException e) {
+            throw new SinalgoFatalException("The 'ReplicatedLog/instances' parameter needs to be a valid integer.");
+        }
+
+        try {
+            if (Configuration.hasParameter("FaultInjection/removeCoordinatorAt")) {
+                this.setRemoveCoordinatorAt(Configuration.getDoubleParameter("FaultInjection/removeCoordinatorAt"));
+            }
+        } catch (CorruptConfigurationEntryException e) {
+            throw new SinalgoFatalException("The 'FaultInjection/removeCoordinatorAt' parameter needs to be a valid number.");
+        }
+
+        try {
+            if (Configuration.hasParameter("Batch/seeds") && batchSeeds.isEmpty()) {
+                for (String seed : Configuration.getStringParameter("Batch/seeds").split(",")) {
+                    if (!seed.trim().isEmpty()) {
+                        batchSeeds.add(Long.parseLong(seed.trim()));
+                    }
+                }
+
+                this.setBatchMSSNodes(Configuration.getIntegerParameter("Batch/mssNodes"));
+                this.setBatchMHNodes(Configuration.getIntegerParameter("Batch/mhNodes"));
+            }
+        } catch (CorruptConfigurationEntryException | NumberFormatException e) {
+            throw new SinalgoFatalException("The 'Batch' entry needs comma separated integer 'seeds' and valid integers 'mssNodes' and 'mhNodes'.");
+        }
+
+        try {
+            if (Configuration.hasParameter("Budget/enabled") && Configuration.getBooleanParameter("Budget/enabled")) {
+                SimulationStatistics statistics = SimulationStatistics.getInstance();
+                statistics.setBudgetsEnabled(true);
+                statistics.setMessagesPerDecisionBudget(Configuration.getDoubleParameter("Budget/messagesPerDecision"));
+                statistics.setRoundsToDecisionBudget(Configuration.getIntegerParameter("Budget/roundsToDecision"));
+                statistics.setPeakHeapBudget(Configuration.getDoubleParameter("Budget/peakHeap"));
+                statistics.setWallTimeBudget(Configuration.getDoubleParameter("Budget/wallTime"));
+
+                if (statistics.getMessagesPerDecisionBudget() <= 0 || statistics.getRoundsToDecisionBudget() <= 0
+                        || statistics.getPeakHeapBudget() <= 0 || statistics.getWallTimeBudget() <= 0) {
+                    throw new SinalgoFatalException("Every budget of the 'Budget' entry must be positive when it is enabled.");
+                }
+            }
+        } catch (CorruptConfigurationEntryException e) {
+            throw new SinalgoFatalException("The 'Budget' entry needs a valid boolean 'enabled' and, when enabled, valid numbers "
+                    + "'messagesPerDecision', 'roundsToDecision', 'peakHeap' and 'wallTime'.");
+        }
     }
 
     @Override
     public boolean hasTerminated() {
+        if (!isRunFinished()) {
+            return false;
+        }
+
+        // the next simulation of the batch runs in this JVM, after the last one the JVM exits as usual (see onExit)
+        if (this.getNextSeed() < this.getBatchSeeds().size()) {
+            finishRun();
+            startNextRun();
+            return false;
+        }
+
+        return true;
+    }
+
+    private boolean isRunFinished() {
         if (this.isExitAfterFixedRounds()) {
             return this.getExitAfterNumRounds() <= Global.getCurrentTime();
         }
 
         if (Tools.isSimulationInGuiMode()) {
             return false; // in GUI mode, have the user decide when to stop.
-        } else {
-            return Global.getCurrentTime() > 100000; // stop after x rounds
         }
+
+        if (this.getLogInstances() > 0 && NodeRegistry.getInstance().getTotalDecidedInstances() >= this.getLogInstances()) {
+            return true;
+        }
+
+        double allDecidedAt = NodeRegistry.getInstance().getAllDecidedAt();
+
+        if (this.isTerminateOnDecision() && allDecidedAt >= 0) {
+            return Global.getCurrentTime() >= allDecidedAt + this.getTerminationGracePeriod();
+        }
+
+        return Global.getCurrentTime() > 100000; // stop after x rounds
     }
 
     /**
@@ -125,8 +265,120 @@ public class CustomGlobal extends AbstractCustomGlobal {
                 JOptionPane.INFORMATION_MESSAGE);
     }
 
+    @GlobalMethod(menuText = "Throughput", order = 2)
+    public void showThroughput() {
+        JOptionPane.showMessageDialog(null, throughputReport(), "Throughput", JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    // decisions and committed MH values per unit of simulated time, since the start of the simulation
+    private String throughputReport() {
+        NodeRegistry registry = NodeRegistry.getInstance();
+        double time = Global.getCurrentTime();
+
+        return "Decided " + registry.getTotalDecidedInstances() + " instances committing " + registry.getCommittedValues()
+                + " MH values in " + time + " (last decision at " + registry.getLastDecisionAt() + "): "
+                + (time > 0 ? registry.getTotalDecidedInstances() / time : 0) + " decisions and "
+                + (time > 0 ? registry.getCommittedValues() / time : 0) + " MH values per unit of time";
+    }
+
+    @GlobalMethod(menuText = "Reset", order = 3)
+    public void resetSimulation() {
+        String seed = JOptionPane.showInputDialog(null, "Removes all nodes and starts a new simulation.\nSeed:", "0");
+
+        if (seed != null) {
+            reset(Long.parseLong(seed.trim()));
+        }
+    }
+
+    /**
+     * Starts a new simulation in the same JVM: removes all nodes, sets the time
+     * back to 0, replaces the state shared by the nodes of the project (the
+     * <code>NodeRegistry</code>, which holds the connectivity grids, and the
+     * <code>SimulationStatistics</code>) with fresh state read again from the
+     * configuration, and seeds the random number generator of Sinalgo. The
+     * nodes of the new simulation are generated afterwards, from the GUI or by
+     * the batch (see <code>hasTerminated</code>).
+     *
+     * @param seed the seed of the new simulation.
+     */
+    public void reset(long seed) {
+        Tools.clearAllNodes();
+        Global.setCurrentTime(0);
+
+        NodeRegistry.reset();
+        SimulationStatistics.reset();
+
+        configure();
+
+        Tools.getRandomNumberGenerator().setSeed(seed);
+        SimulationStatistics.getInstance().start();
+    }
+
+    private void startNextRun() {
+        long seed = this.getBatchSeeds().get(nextSeed++);
+
+        logger.logln(LogL.infoLog, "Starting the simulation with seed " + seed);
+        reset(seed);
+        generateNodes(this.getBatchMSSNodes(), "Grid2D", false);
+        generateNodes(this.getBatchMHNodes(), "Random", true);
+    }
+
+    // generates the nodes as the -gen command line argument of Sinalgo does, MH Nodes with the RandomWayPoint mobility
+    private void generateNodes(int count, String distributionModel, boolean mhNodes) {
+        DistributionModel distribution = Model.getDistributionModelInstance(distributionModel);
+        distribution.setNumberOfNodes(count);
+        distribution.initialize();
+
+        for (int i = 0; i < count; i++) {
+            Node node = mhNodes ? new MHNode() : new MSSNode();
+            node.setPosition(distribution.getNextPosition());
+
+            if (mhNodes) {
+                node.setMobilityModel(Model.getMobilityModelInstance("RandomWayPoint"));
+            }
+
+            node.finishInitializationWithDefaultModels(true);
+        }
+    }
+
+    @Override
+    public void nodeAddedEvent(Node node) {
+        NodeRegistry.getInstance().register(node);
+    }
+
+    @Override
+    public void nodeRemovedEvent(Node node) {
+        NodeRegistry.getInstance().unregister(node);
+    }
+
     @Override
     public void preRun() {
+        SimulationStatistics.getInstance().start();
+
+        if (!this.getBatchSeeds().isEmpty()) {
+            startNextRun();
+        }
+    }
+
+    @Override
+    public void preRound() {
+        if (this.getRemoveCoordinatorAt() >= 0 && Global.getCurrentTime() >= this.getRemoveCoordinatorAt()) {
+            removeCoordinator();
+        }
+    }
+
+    // removes the coordinator the MSS Nodes follow, as soon as there is one
+    private void removeCoordinator() {
+        for (MSSNode mssNode : NodeRegistry.getInstance().getMSSNodes()) {
+            MSSNode coordinator = NodeRegistry.getInstance().getMSSNode(mssNode.getCoordinatorId());
+
+            if (coordinator != null) {
+                logger.logln(LogL.infoLog, "Removing coordinator " + coordinator.getID() + " at " + Global.getCurrentTime());
+                this.setRemoveCoordinatorAt(-1);
+                Tools.removeNode(coordinator);
+                return;
+            }
+        }
     }
 
     @Override
@@ -135,6 +387,27 @@ public class CustomGlobal extends AbstractCustomGlobal {
 
     @Override
     public void onExit() {
-        // perform some cleanup operations here
+        finishRun();
+
+        if (!violations.isEmpty()) {
+            Main.fatalError("Budget exceeded: " + String.join(", ", violations));
+        }
+    }
+
+    // reports the statistics of the simulation that just ended, and the budgets it exceeded
+    private void finishRun() {
+        logger.logln(LogL.infoLog, throughputReport());
+
+        NodeRegistry registry = NodeRegistry.getInstance();
+        SimulationStatistics statistics = SimulationStatistics.getInstance();
+        String report = statistics.report(registry);
+        logger.logln(LogL.infoLog, report);
+
+        // in batch mode the report is also printed, for the scenario runner (see script/run_scenarios.rb)
+        if (!Tools.isSimulationInGuiMode()) {
+            System.out.println(report);
+        }
+
+        violations.addAll(statistics.budgetViolations(registry));
     }
 }
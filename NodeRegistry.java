@@ -0,0 +1,392 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package projects.chandra_toueg;
+
+import lombok.Getter;
+import lombok.Setter;
+import projects.chandra_toueg.models.connectivityModels.ConnectivityGrids;
+import projects.chandra_toueg.nodes.nodeImplementations.MHNode;
+import projects.chandra_toueg.nodes.nodeImplementations.MSSNode;
+import sinalgo.exception.SinalgoFatalException;
+import sinalgo.nodes.Node;
+import sinalgo.runtime.Global;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps track of the MSS and MH nodes currently in the simulation. The registry
+ * is updated incrementally whenever a node is added or removed (see
+ * <code>CustomGlobal</code>), so the nodes can ask for the total of each node
+ * type and for a MSS Node by its id without scanning all nodes every round.
+ * <p>
+ * With the hierarchy, the MSS Nodes are also grouped in square regions of side
+ * <code>regionSize</code> by their position, and the MSS Node with the lowest
+ * id of each region is its leader. MSS Nodes do not move, so the regions are
+ * only computed again after a MSS Node is added or removed.
+ * <p>
+ * The MSS Nodes that can coordinate (all of them, or the region leaders) are
+ * ranked by the <code>CoordinatorPolicy</code> at most once every
+ * <code>rankingInterval</code>, and take turns in that order. The coordinator
+ * of each round of each instance is taken from the ranking the first time a
+ * MSS Node asks for it and kept until every MSS Node has decided the
+ * instance, so MSS Nodes entering the same round at different times agree on
+ * its coordinator even when the ranking changed in between.
+ * <p>
+ * With <code>stableLeader</code>, the coordinator chosen for a round stays the
+ * coordinator of the next rounds and instances, until it is removed, stops
+ * leading a region or is suspected by a MSS Node (see
+ * <code>recordSuspicion</code>). The leader only changes when the coordinator
+ * of a new round is chosen, from information every MSS Node shares.
+ */
+public class NodeRegistry {
+    private static NodeRegistry instance = new NodeRegistry();
+
+    private final Map<Long, MSSNode> mssNodes = new LinkedHashMap<>();
+    private final Collection<MSSNode> mssNodesView = Collections.unmodifiableCollection(mssNodes.values());
+
+    @Getter
+    private int totalMHNodes;
+
+    // nodes that have reached consensus, updated when their decided flag flips
+    @Getter
+    private int decidedMSSNodes;
+
+    @Getter
+    private int decidedMHNodes;
+
+    // value decided in each consensus instance decided so far, the MH values their batches committed and the time of
+    // the last decision
+    private final Map<Integer, Integer> decidedValues = new HashMap<>();
+
+    // MSS Nodes that have decided each instance, until all of them have (see recordDecision)
+    private final Map<Integer, Integer> decisionReports = new HashMap<>();
+
+    @Getter
+    private int totalDecidedInstances;
+
+    @Getter
+    private long committedValues;
+
+    @Getter
+    private double lastDecisionAt;
+
+    // highest round in which an instance was decided, and the sum of the rounds each decided instance took
+    @Getter
+    private int maxDecisionRound;
+
+    @Getter
+    private long decisionRounds;
+
+    // time at which every MSS Node and MH Node had decided, -1 while some node has not (a node may join after
+    // everyone else decided)
+    @Getter
+    private double allDecidedAt = -1;
+
+    // side of the regions, 0 when there is no hierarchy
+    @Getter
+    @Setter
+    private double regionSize = 0;
+
+    private boolean regionsValid = false;
+    private final Map<Long, MSSNode> regionLeaderOf = new HashMap<>();
+    private final Map<Long, List<MSSNode>> regionMembers = new HashMap<>();
+    private final List<MSSNode> regionLeaders = new ArrayList<>();
+
+    @Getter
+    @Setter
+    private CoordinatorPolicy coordinatorPolicy = CoordinatorPolicy.ROUND_ROBIN;
+
+    @Getter
+    @Setter
+    private double rankingInterval = 50;
+
+    private boolean rankingValid = false;
+    private double rankedAt;
+    private final List<MSSNode> coordinatorRanking = new ArrayList<>();
+
+    // coordinator of each round of the instances some MSS Node has not decided yet, keyed by instance and round (see
+    // roundKey)
+    private final Map<Long, Long> coordinators = new HashMap<>();
+
+    @Getter
+    @Setter
+    private boolean stableLeader = false;
+
+    // the stable leader, 0 when there is none yet, and whether it has been suspected since it was chosen
+    private long leaderId = 0;
+    private boolean leaderSuspected = false;
+
+    // recent latency of each MSS Node as a coordinator, and how often it was suspected while coordinating
+    private final Map<Long, Double> latencies = new HashMap<>();
+    private final Map<Long, Double> suspicions = new HashMap<>();
+
+    // positions of the nodes, for the connectivity model (see MSSConnection), created by the first node
+    @Getter
+    @Setter
+    private ConnectivityGrids connectivityGrids;
+
+    public static NodeRegistry getInstance() {
+        return instance;
+    }
+
+    // starts over with an empty registry and the default settings, for the next simulation in the same JVM
+    public static void reset() {
+        instance = new NodeRegistry();
+    }
+
+    public void register(Node node) {
+        if (node instanceof MSSNode) {
+            mssNodes.put(node.getID(), (MSSNode) node);
+            regionsValid = false;
+            rankingValid = false;
+        } else if (node instanceof MHNode) {
+            totalMHNodes++;
+        }
+
+        updateAllDecidedAt();
+    }
+
+    public void unregister(Node node) {
+        if (node instanceof MSSNode) {
+            mssNodes.remove(node.getID());
+            regionsValid = false;
+            rankingValid = false;
+
+            if (((MSSNode) node).isDecided()) {
+                decidedMSSNodes--;
+            }
+        } else if (node instanceof MHNode) {
+            totalMHNodes--;
+
+            if (((MHNode) node).isDecided()) {
+                decidedMHNodes--;
+            }
+        }
+
+        updateAllDecidedAt();
+    }
+
+    // must be called once per node, when its decided flag flips
+    public void markDecided(Node node) {
+        if (node instanceof MSSNode) {
+            decidedMSSNodes++;
+        } else if (node instanceof MHNode) {
+            decidedMHNodes++;
+        }
+
+        updateAllDecidedAt();
+    }
+
+    private void updateAllDecidedAt() {
+        if (!allDecided()) {
+            allDecidedAt = -1;
+        } else if (allDecidedAt < 0) {
+            allDecidedAt = Global.getCurrentTime();
+        }
+    }
+
+    // every MSS Node reports the instances it decides, only the first report of each instance counts. Two different
+    // values decided in the same instance break agreement, which stops the simulation. The coordinators of an instance
+    // are kept until every MSS Node has decided it, since the MSS Nodes still in the instance ask for them again.
+    public void recordDecision(int instance, int value, int batchSize, int round) {
+        Integer decided = decidedValues.putIfAbsent(instance, value);
+
+        if (decided == null) {
+            totalDecidedInstances++;
+            committedValues += batchSize;
+            lastDecisionAt = Global.getCurrentTime();
+            maxDecisionRound = Math.max(maxDecisionRound, round);
+            decisionRounds += round + 1;
+        } else if (decided != value) {
+            throw new SinalgoFatalException("Agreement violated: instance " + instance + " decided both " + decided + " and " + value);
+        }
+
+        if (decisionReports.merge(instance, 1, Integer::sum) >= mssNodes.size()) {
+            decisionReports.remove(instance);
+            coordinators.keySet().removeIf(key -> (int) (key >>> 32) == instance);
+        }
+    }
+
+    public boolean allDecided() {
+        return !mssNodes.isEmpty() && decidedMSSNodes == mssNodes.size() && decidedMHNodes == totalMHNodes;
+    }
+
+    public int getTotalMSSNodes() {
+        return mssNodes.size();
+    }
+
+    public MSSNode getMSSNode(long id) {
+        return mssNodes.get(id);
+    }
+
+    public Collection<MSSNode> getMSSNodes() {
+        return mssNodesView;
+    }
+
+    public boolean isHierarchical() {
+        return regionSize > 0;
+    }
+
+    public MSSNode getRegionLeader(MSSNode node) {
+        updateRegions();
+        return regionLeaderOf.get(node.getID());
+    }
+
+    public boolean isRegionLeader(long id) {
+        updateRegions();
+        MSSNode node = mssNodes.get(id);
+        return node != null && regionLeaderOf.get(id) == node;
+    }
+
+    // region leaders sorted by id, so every MSS Node sees them in the same order
+    public List<MSSNode> getRegionLeaders() {
+        updateRegions();
+        return regionLeaders;
+    }
+
+    // MSS Nodes in the region of the given leader, including the leader
+    public List<MSSNode> getRegionMembers(MSSNode leader) {
+        updateRegions();
+        return regionMembers.getOrDefault(leader.getID(), Collections.emptyList());
+    }
+
+    // the coordinator of the given round of the given instance, chosen once for every MSS Node
+    public long getCoordinator(int instance, int round) {
+        return coordinators.computeIfAbsent(roundKey(instance, round), key -> {
+            if (stableLeader && mssNodes.containsKey(leaderId) && !leaderSuspected && (!isHierarchical() || isRegionLeader(leaderId))) {
+                return leaderId;
+            }
+
+            List<MSSNode> ranking = getCoordinatorRanking();
+            leaderId = ranking.get((instance + round) % ranking.size()).getID();
+            leaderSuspected = false;
+            return leaderId;
+        });
+    }
+
+    private List<MSSNode> getCoordinatorRanking() {
+        double now = Global.getCurrentTime();
+
+        if (!rankingValid || now - rankedAt >= rankingInterval) {
+            rankCoordinators(now);
+        }
+
+        return coordinatorRanking;
+    }
+
+    private static long roundKey(int instance, int round) {
+        return (long) instance << 32 | round & 0xFFFFFFFFL;
+    }
+
+    public void recordLatency(long id, double latency) {
+        latencies.merge(id, latency, (previous, measured) -> 0.8 * previous + 0.2 * measured);
+    }
+
+    public void recordSuspicion(long id) {
+        suspicions.merge(id, 1.0, Double::sum);
+        leaderSuspected |= id == leaderId;
+    }
+
+    public double getLatency(long id) {
+        return latencies.getOrDefault(id, 0.0);
+    }
+
+    public double getSuspicions(long id) {
+        return suspicions.getOrDefault(id, 0.0);
+    }
+
+    private void rankCoordinators(double now) {
+        rankingValid = true;
+        rankedAt = now;
+
+        coordinatorRanking.clear();
+        coordinatorRanking.addAll(isHierarchical() ? getRegionLeaders() : mssNodes.values());
+        coordinatorRanking.sort(Comparator.comparingDouble((MSSNode mssNode) -> coordinatorPolicy.cost(mssNode, this))
+                .thenComparingLong(Node::getID));
+
+        // older suspicions weigh less in the next ranking
+        suspicions.replaceAll((id, count) -> count / 2);
+    }
+
+    private void updateRegions() {
+        if (regionsValid) {
+            return;
+        }
+
+        regionsValid = true;
+        regionLeaderOf.clear();
+        regionMembers.clear();
+        regionLeaders.clear();
+
+        if (!isHierarchical()) {
+            return;
+        }
+
+        Map<Long, MSSNode> leaderByRegion = new HashMap<>();
+
+        for (MSSNode mssNode : mssNodes.values()) {
+            long region = regionOf(mssNode);
+            MSSNode leader = leaderByRegion.get(region);
+
+            if (leader == null || mssNode.getID() < leader.getID()) {
+                leaderByRegion.put(region, mssNode);
+            }
+        }
+
+        for (MSSNode mssNode : mssNodes.values()) {
+            MSSNode leader = leaderByRegion.get(regionOf(mssNode));
+            regionLeaderOf.put(mssNode.getID(), leader);
+            regionMembers.computeIfAbsent(leader.getID(), id -> new ArrayList<>()).add(mssNode);
+        }
+
+        regionLeaders.addAll(leaderByRegion.values());
+        regionLeaders.sort(Comparator.comparingLong(Node::getID));
+    }
+
+    private long regionOf(MSSNode mssNode) {
+        long x = (long) Math.floor(mssNode.getPosition().getXCoord() / regionSize);
+        long y = (long) Math.floor(mssNode.getPosition().getYCoord() / regionSize);
+        return x << 32 ^ y & 0xFFFFFFFFL;
+    }
+}
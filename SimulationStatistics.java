@@ -0,0 +1,215 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package projects.chandra_toueg;
+
+import lombok.Getter;
+import lombok.Setter;
+import projects.chandra_toueg.nodes.messages.EnvelopeMessage;
+import projects.chandra_toueg.nodes.messages.MessageKind;
+import projects.chandra_toueg.nodes.messages.ProtocolMessage;
+import sinalgo.nodes.messages.Message;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Cost of a simulation: the messages transmitted, by kind, the wall time and
+ * the peak heap, reported with the rounds the decisions took when the
+ * simulation exits.
+ * <p>
+ * The messages are counted by the message transmission model, which sees
+ * every message sent, directly or not, once per receiver. An envelope counts
+ * as one transmission, and each of its payloads is counted by its kind too.
+ * <p>
+ * When the budgets are enabled, a simulation that sends more messages per
+ * decision, takes more rounds to decide, or uses more heap or wall time than
+ * its budget, or decides nothing, fails when it exits. Every budget must then
+ * be set, a budget that is missing or not positive is a configuration error.
+ */
+public class SimulationStatistics {
+    private static SimulationStatistics instance = new SimulationStatistics();
+
+    private final long[] messagesByKind = new long[MessageKind.COUNT];
+
+    @Getter
+    private long transmissions;
+
+    private long startedAt = System.nanoTime();
+
+    @Getter
+    @Setter
+    private boolean budgetsEnabled = false;
+
+    @Getter
+    @Setter
+    private double messagesPerDecisionBudget = 0;
+
+    @Getter
+    @Setter
+    private int roundsToDecisionBudget = 0;
+
+    // in MB
+    @Getter
+    @Setter
+    private double peakHeapBudget = 0;
+
+    // in seconds
+    @Getter
+    @Setter
+    private double wallTimeBudget = 0;
+
+    public static SimulationStatistics getInstance() {
+        return instance;
+    }
+
+    // starts over with no messages counted and no budgets, for the next simulation in the same JVM
+    public static void reset() {
+        instance = new SimulationStatistics();
+    }
+
+    public void start() {
+        startedAt = System.nanoTime();
+
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    public void countMessage(Message msg) {
+        transmissions++;
+
+        ProtocolMessage protocolMessage = (ProtocolMessage) msg;
+        messagesByKind[protocolMessage.getKind()]++;
+
+        if (protocolMessage.getKind() == MessageKind.ENVELOPE) {
+            for (Message payload : ((EnvelopeMessage) msg).getPayloads()) {
+                messagesByKind[((ProtocolMessage) payload).getKind()]++;
+            }
+        }
+    }
+
+    public long getMessages(int kind) {
+        return messagesByKind[kind];
+    }
+
+    // in seconds, since the simulation started
+    public double getWallTime() {
+        return (System.nanoTime() - startedAt) / 1e9;
+    }
+
+    // in MB, the sum of the peaks of the heap pools, so at least the real peak
+    public double getPeakHeap() {
+        long peak = 0;
+
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+
+        return peak / (1024.0 * 1024.0);
+    }
+
+    public double getMessagesPerDecision(NodeRegistry registry) {
+        int decisions = registry.getTotalDecidedInstances();
+        return decisions > 0 ? (double) transmissions / decisions : Double.POSITIVE_INFINITY;
+    }
+
+    public int getRoundsToDecision(NodeRegistry registry) {
+        return registry.getTotalDecidedInstances() > 0 ? registry.getMaxDecisionRound() + 1 : 0;
+    }
+
+    // a single line, so that scripts can read the report from the output of a batch run
+    public String report(NodeRegistry registry) {
+        StringBuilder report = new StringBuilder("[Statistics]");
+        int decisions = registry.getTotalDecidedInstances();
+
+        report.append(" wallTime=").append(String.format(Locale.ROOT, "%.3f", getWallTime()));
+        report.append(" peakHeapMB=").append(String.format(Locale.ROOT, "%.1f", getPeakHeap()));
+        report.append(" decisions=").append(decisions);
+        report.append(" lastDecisionAt=").append(registry.getLastDecisionAt());
+        report.append(" allDecidedAt=").append(registry.getAllDecidedAt());
+        report.append(" roundsToDecision=").append(getRoundsToDecision(registry));
+        report.append(" meanRounds=").append(decisions > 0 ? String.format(Locale.ROOT, "%.2f", (double) registry.getDecisionRounds() / decisions) : "-");
+        report.append(" transmissions=").append(transmissions);
+        report.append(" messagesPerDecision=").append(decisions > 0 ? String.format(Locale.ROOT, "%.1f", getMessagesPerDecision(registry)) : "-");
+
+        for (int kind = 0; kind < MessageKind.COUNT; kind++) {
+            report.append(' ').append(MessageKind.name(kind)).append('=').append(messagesByKind[kind]);
+        }
+
+        return report.toString();
+    }
+
+    public List<String> budgetViolations(NodeRegistry registry) {
+        List<String> violations = new ArrayList<>();
+        double messagesPerDecision = getMessagesPerDecision(registry);
+        int roundsToDecision = getRoundsToDecision(registry);
+        double peakHeap = getPeakHeap();
+        double wallTime = getWallTime();
+
+        if (!budgetsEnabled) {
+            return violations;
+        }
+
+        if (registry.getTotalDecidedInstances() == 0) {
+            violations.add("no decision");
+        } else if (messagesPerDecision > messagesPerDecisionBudget) {
+            violations.add("messages per decision " + messagesPerDecision + " > " + messagesPerDecisionBudget);
+        }
+
+        if (roundsToDecision > roundsToDecisionBudget) {
+            violations.add("rounds to decision " + roundsToDecision + " > " + roundsToDecisionBudget);
+        }
+
+        if (peakHeap > peakHeapBudget) {
+            violations.add("peak heap " + peakHeap + " MB > " + peakHeapBudget + " MB");
+        }
+
+        if (wallTime > wallTimeBudget) {
+            violations.add("wall time " + wallTime + " s > " + wallTimeBudget + " s");
+        }
+
+        return violations;
+    }
+}
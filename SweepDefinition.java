@@ -0,0 +1,155 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package projects.chandra_toueg;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parameters of a sweep, read from a text file with one parameter per line
+ * and the values to sweep separated by commas:
+ *
+ * <pre>
+ * # lines starting with # are comments
+ * mss = 10, 100
+ * mh = 100, 1000
+ * seed = 1, 2, 3
+ * NackProbability = 0.0, 0.2, 0.5
+ * UDG/rMax = 200, 300
+ * RandomMessageTransmission/max = 1, 5
+ * </pre>
+ * <p>
+ * <code>mss</code> and <code>mh</code> are the numbers of MSS Nodes and MH
+ * Nodes, <code>seed</code> the seeds each configuration runs with (only
+ * <code>DEFAULT_SEED</code> when there is no <code>seed</code> line), and any
+ * other parameter is a configuration entry overwritten in Config.xml.
+ */
+public class SweepDefinition {
+    public static final String MSS = "mss";
+    public static final String MH = "mh";
+    public static final String SEED = "seed";
+
+    // seed of the sweeps that do not give any, so they can be run again with the same results
+    public static final String DEFAULT_SEED = "1";
+
+    private final Map<String, List<String>> values = new LinkedHashMap<>();
+
+    // the parameters that make up a configuration, in the order of the file, without the seed
+    @Getter
+    private final List<String> parameters = new ArrayList<>();
+
+    public static SweepDefinition parse(Path file) throws IOException {
+        SweepDefinition definition = new SweepDefinition();
+        int lineNumber = 0;
+
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            lineNumber++;
+            line = line.trim();
+
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            int separator = line.indexOf('=');
+
+            if (separator <= 0) {
+                throw new IllegalArgumentException(file + ":" + lineNumber + ": expected 'parameter = value, value, ...'");
+            }
+
+            String parameter = line.substring(0, separator).trim();
+            List<String> parameterValues = new ArrayList<>();
+
+            for (String value : line.substring(separator + 1).split(",")) {
+                if (!value.trim().isEmpty()) {
+                    parameterValues.add(value.trim());
+                }
+            }
+
+            if (parameterValues.isEmpty()) {
+                throw new IllegalArgumentException(file + ":" + lineNumber + ": no value for " + parameter);
+            }
+
+            definition.values.put(parameter, parameterValues);
+
+            if (!parameter.equals(SEED)) {
+                definition.parameters.add(parameter);
+            }
+        }
+
+        if (!definition.values.containsKey(MSS) || !definition.values.containsKey(MH)) {
+            throw new IllegalArgumentException(file + ": the sweep needs the numbers of nodes, 'mss' and 'mh'");
+        }
+
+        return definition;
+    }
+
+    // without seeds, each configuration runs once with DEFAULT_SEED
+    public List<String> getSeeds() {
+        return values.getOrDefault(SEED, Collections.singletonList(DEFAULT_SEED));
+    }
+
+    // every combination of the values of the parameters, the first parameter changing the slowest
+    public List<Map<String, String>> getConfigurations() {
+        List<Map<String, String>> configurations = new ArrayList<>();
+        configurations.add(new LinkedHashMap<>());
+
+        for (String parameter : parameters) {
+            List<Map<String, String>> expanded = new ArrayList<>();
+
+            for (Map<String, String> configuration : configurations) {
+                for (String value : values.get(parameter)) {
+                    Map<String, String> next = new LinkedHashMap<>(configuration);
+                    next.put(parameter, value);
+                    expanded.add(next);
+                }
+            }
+
+            configurations = expanded;
+        }
+
+        return configurations;
+    }
+}
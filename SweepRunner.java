@@ -0,0 +1,270 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package projects.chandra_toueg;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the simulations of a sweep (see <code>SweepDefinition</code>) in batch
+ * mode, as many at a time as there are cores, and prints one table with the
+ * consensus time and round statistics of every configuration, over its seeds.
+ * <p>
+ * The seeds of a configuration run one after another in the same JVM (see
+ * <code>BatchSimulation</code>), split in as many JVMs as needed to keep every
+ * core busy. The JVMs use the classpath of the runner, so it is started from
+ * the Sinalgo directory like Sinalgo itself:
+ *
+ * <pre>
+ * java -cp &lt;Sinalgo classpath&gt; projects.chandra_toueg.SweepRunner &lt;sweep file&gt; [results.csv]
+ * </pre>
+ * <p>
+ * The system properties <code>sweep.threads</code> (the number of JVMs run at
+ * a time) and <code>sweep.jvmArgs</code> (e.g. the heap of each JVM) tune the
+ * runs.
+ */
+public class SweepRunner {
+    private static final String STATISTICS = "[Statistics]";
+
+    // statistics of the report of each simulation (see SimulationStatistics) averaged over the seeds
+    private static final String[] METRICS = {"lastDecisionAt", "allDecidedAt", "roundsToDecision", "meanRounds",//
+            "messagesPerDecision", "transmissions", "wallTime"};
+
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        if (args.length < 1) {
+            System.err.println("usage: SweepRunner <sweep file> [results.csv]");
+            System.exit(2);
+        }
+
+        SweepDefinition sweep = SweepDefinition.parse(Paths.get(args[0]));
+        List<Map<String, String>> configurations = sweep.getConfigurations();
+        List<String> seeds = sweep.getSeeds();
+
+        int threads = Integer.getInteger("sweep.threads", Runtime.getRuntime().availableProcessors());
+        int batches = Math.min(seeds.size(), Math.max(1, threads / configurations.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<List<Future<List<Map<String, String>>>>> runs = new ArrayList<>();
+
+        System.err.println("Running " + configurations.size() * seeds.size() + " simulations in " + configurations.size() * batches//
+                + " JVMs, " + threads + " at a time");
+
+        for (Map<String, String> configuration : configurations) {
+            List<Future<List<Map<String, String>>>> configurationRuns = new ArrayList<>();
+
+            for (int batch = 0; batch < batches; batch++) {
+                List<String> batchSeeds = seeds.subList(batch * seeds.size() / batches, (batch + 1) * seeds.size() / batches);
+                configurationRuns.add(executor.submit(() -> runSimulations(configuration, batchSeeds)));
+            }
+
+            runs.add(configurationRuns);
+        }
+
+        executor.shutdown();
+
+        List<String> header = new ArrayList<>(sweep.getParameters());
+        header.add("runs");
+        header.add("failed");
+        header.addAll(Arrays.asList(METRICS));
+        header.add("maxRounds");
+
+        List<List<String>> table = new ArrayList<>();
+
+        for (int i = 0; i < configurations.size(); i++) {
+            table.add(summarize(configurations.get(i), runs.get(i), seeds.size()));
+        }
+
+        printTable(header, table);
+
+        if (args.length > 1) {
+            List<String> lines = new ArrayList<>();
+            lines.add(String.join(",", header));
+
+            for (List<String> row : table) {
+                lines.add(String.join(",", row));
+            }
+
+            Files.write(Paths.get(args[1]), lines, StandardCharsets.UTF_8);
+        }
+    }
+
+    // runs the simulations of the given seeds in one JVM and returns the statistics of the ones that reported them
+    private static List<Map<String, String>> runSimulations(Map<String, String> configuration, List<String> seeds)
+            throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command(configuration, seeds)).redirectErrorStream(true).start();
+        List<Map<String, String>> statistics = new ArrayList<>();
+        List<String> output = new ArrayList<>();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(STATISTICS)) {
+                    statistics.add(parseStatistics(line));
+                } else {
+                    output.add(line);
+                }
+            }
+        }
+
+        int exitCode = process.waitFor();
+
+        if (exitCode != 0 || statistics.size() < seeds.size()) {
+            System.err.println("Simulations " + configuration + " with seeds " + seeds + " failed after " + statistics.size()//
+                    + " of them (exit code " + exitCode + "):");
+            output.forEach(System.err::println);
+        }
+
+        return statistics;
+    }
+
+    private static List<String> command(Map<String, String> configuration, List<String> seeds) {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+
+        String jvmArgs = System.getProperty("sweep.jvmArgs", "").trim();
+
+        if (!jvmArgs.isEmpty()) {
+            command.addAll(Arrays.asList(jvmArgs.split("\\s+")));
+        }
+
+        command.addAll(Arrays.asList("-cp", System.getProperty("java.class.path"), BatchSimulation.class.getName()));
+
+        List<String> overwrites = new ArrayList<>();
+
+        for (Map.Entry<String, String> parameter : configuration.entrySet()) {
+            if (!parameter.getKey().equals(SweepDefinition.MSS) && !parameter.getKey().equals(SweepDefinition.MH)) {
+                overwrites.add(parameter.getKey() + "=" + parameter.getValue());
+            }
+        }
+
+        command.addAll(Arrays.asList(BatchSimulation.arguments(configuration.get(SweepDefinition.MSS), configuration.get(SweepDefinition.MH),//
+                String.join(",", seeds), overwrites)));
+        return command;
+    }
+
+    // the report is a single line of key=value pairs after the STATISTICS prefix
+    private static Map<String, String> parseStatistics(String line) {
+        Map<String, String> statistics = new HashMap<>();
+
+        for (String pair : line.substring(STATISTICS.length()).trim().split(" ")) {
+            int separator = pair.indexOf('=');
+            statistics.put(pair.substring(0, separator), pair.substring(separator + 1));
+        }
+
+        return statistics;
+    }
+
+    // averages the metrics over the seeds that succeeded; a metric without a value in any run is left as "-"
+    private static List<String> summarize(Map<String, String> configuration, List<Future<List<Map<String, String>>>> batches, int runs)
+            throws InterruptedException, ExecutionException {
+        double[] sums = new double[METRICS.length];
+        int[] counts = new int[METRICS.length];
+        int maxRounds = 0;
+        List<Map<String, String>> reported = new ArrayList<>();
+
+        for (Future<List<Map<String, String>>> batch : batches) {
+            reported.addAll(batch.get());
+        }
+
+        for (Map<String, String> statistics : reported) {
+            for (int i = 0; i < METRICS.length; i++) {
+                String value = statistics.get(METRICS[i]);
+
+                // allDecidedAt is -1 when not every node has decided
+                if (value != null && !value.equals("-") && Double.parseDouble(value) >= 0) {
+                    sums[i] += Double.parseDouble(value);
+                    counts[i]++;
+                }
+            }
+
+            maxRounds = Math.max(maxRounds, Integer.parseInt(statistics.get("roundsToDecision")));
+        }
+
+        List<String> row = new ArrayList<>(configuration.values());
+        row.add(String.valueOf(runs));
+        row.add(String.valueOf(runs - reported.size()));
+
+        for (int i = 0; i < METRICS.length; i++) {
+            row.add(counts[i] > 0 ? String.format(Locale.ROOT, "%.2f", sums[i] / counts[i]) : "-");
+        }
+
+        row.add(String.valueOf(maxRounds));
+        return row;
+    }
+
+    private static void printTable(List<String> header, List<List<String>> rows) {
+        int[] widths = new int[header.size()];
+
+        for (int i = 0; i < header.size(); i++) {
+            widths[i] = header.get(i).length();
+
+            for (List<String> row : rows) {
+                widths[i] = Math.max(widths[i], row.get(i).length());
+            }
+        }
+
+        printRow(header, widths);
+
+        for (List<String> row : rows) {
+            printRow(row, widths);
+        }
+    }
+
+    private static void printRow(List<String> row, int[] widths) {
+        StringBuilder line = new StringBuilder();
+
+        for (int i = 0; i < row.size(); i++) {
+            line.append(String.format("%" + (widths[i] + 2) + "s", row.get(i)));
+        }
+
+        System.out.println(line);
+    }
+}
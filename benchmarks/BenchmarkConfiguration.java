@@ -0,0 +1,68 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package projects.chandra_toueg.benchmarks;
+
+import sinalgo.configuration.Configuration;
+
+// The benchmarks run outside of a simulation, so the entries the measured classes read from Config.xml are set here,
+// with the same values as in the project configuration.
+final class BenchmarkConfiguration {
+    private static boolean loaded;
+
+    private BenchmarkConfiguration() {
+    }
+
+    static synchronized void load() {
+        if (loaded) {
+            return;
+        }
+
+        put("GeometricNodeCollection/rMax", "10000");
+        put("UDG/rMax", "300");
+        put("RandomMessageTransmission/distribution", "Uniform");
+        put("RandomMessageTransmission/min", "1");
+        put("RandomMessageTransmission/max", "1");
+        put("NackProbability", "0.0");
+        loaded = true;
+    }
+
+    private static void put(String key, String value) {
+        if (!Configuration.hasParameter(key)) {
+            Configuration.putPropertyEntry(key, value);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package projects.chandra_toueg.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import projects.chandra_toueg.nodes.messages.MHValueComparator;
+import projects.chandra_toueg.nodes.messages.MHValueMessage;
+import projects.chandra_toueg.nodes.messages.ProposeValueComparator;
+import projects.chandra_toueg.nodes.messages.ProposeValueMessage;
+import projects.chandra_toueg.nodes.nodeImplementations.BestProposal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Sorting of the buffers of MH values (values of the MH Nodes of a cell) and of proposals (one per MSS Node), with
+// the sizes of small, default and dense deployments. Timestamps come from a small range, so ties on the timestamp are
+// broken by the value as in a simulation. bestProposal keeps only the best value of the same buffer, as the MSS
+// Nodes do now, for comparison.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class ComparatorBenchmark {
+    @Param({"10", "100", "1000", "10000"})
+    private int bufferSize;
+
+    private final MHValueComparator mhValueComparator = new MHValueComparator();
+    private final ProposeValueComparator proposeValueComparator = new ProposeValueComparator();
+
+    private List<MHValueMessage> mhValues;
+    private List<ProposeValueMessage> proposals;
+
+    // the buffers are sorted in place, so each invocation sorts a fresh copy
+    private List<MHValueMessage> mhValuesCopy;
+    private List<ProposeValueMessage> proposalsCopy;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        mhValues = new ArrayList<>(bufferSize);
+        proposals = new ArrayList<>(bufferSize);
+
+        for (int i = 0; i < bufferSize; i++) {
+            mhValues.add(new MHValueMessage(random.nextInt(), random.nextInt(100)));
+            proposals.add(new ProposeValueMessage(random.nextInt(), random.nextInt(100), random.nextInt(100), i, -1, 0, 0));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void copyBuffers() {
+        mhValuesCopy = new ArrayList<>(mhValues);
+        proposalsCopy = new ArrayList<>(proposals);
+    }
+
+    @Benchmark
+    public List<MHValueMessage> sortMHValues() {
+        mhValuesCopy.sort(mhValueComparator);
+        return mhValuesCopy;
+    }
+
+    @Benchmark
+    public List<ProposeValueMessage> sortProposals() {
+        proposalsCopy.sort(proposeValueComparator);
+        return proposalsCopy;
+    }
+
+    @Benchmark
+    public BestProposal bestProposal() {
+        BestProposal best = new BestProposal();
+
+        for (MHValueMessage msg : mhValues) {
+            best.add(msg.getValue(), msg.getTimestamp());
+        }
+
+        return best;
+    }
+}
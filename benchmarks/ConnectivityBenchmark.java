@@ -0,0 +1,123 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package projects.chandra_toueg.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import projects.chandra_toueg.models.connectivityModels.MSSConnection;
+import projects.chandra_toueg.nodes.nodeImplementations.MHNode;
+import projects.chandra_toueg.nodes.nodeImplementations.MSSNode;
+import sinalgo.exception.CorruptConfigurationEntryException;
+import sinalgo.nodes.Node;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// MSSConnection.isConnected over dense deployments: the MSS Nodes and MH Nodes are spread over the 2000x2000 area of
+// Config.xml, and the pairs tested are random pairs of nodes, as updateConnections would test them without the
+// spatial grids.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class ConnectivityBenchmark {
+    private static final int PAIRS = 4096;
+    private static final double AREA = 2000;
+
+    @Param({"10", "100", "1000"})
+    private int mssNodes;
+
+    @Param({"1000", "10000"})
+    private int mhNodes;
+
+    private Connection connection;
+    private Node[] from;
+    private Node[] to;
+
+    // isConnected is protected, the benchmark reaches it through a subclass
+    static class Connection extends MSSConnection {
+        Connection() throws CorruptConfigurationEntryException {
+        }
+
+        boolean connected(Node from, Node to) {
+            return isConnected(from, to);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws CorruptConfigurationEntryException {
+        BenchmarkConfiguration.load();
+        connection = new Connection();
+
+        Random random = new Random(42);
+        Node[] nodes = new Node[mssNodes + mhNodes];
+
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = i < mssNodes ? new MSSNode() : new MHNode();
+            nodes[i].setPosition(random.nextDouble() * AREA, random.nextDouble() * AREA, 0);
+        }
+
+        from = new Node[PAIRS];
+        to = new Node[PAIRS];
+
+        for (int i = 0; i < PAIRS; i++) {
+            from[i] = nodes[random.nextInt(nodes.length)];
+            to[i] = nodes[random.nextInt(nodes.length)];
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public int isConnected() {
+        int connected = 0;
+
+        for (int i = 0; i < PAIRS; i++) {
+            if (connection.connected(from[i], to[i])) {
+                connected++;
+            }
+        }
+
+        return connected;
+    }
+}
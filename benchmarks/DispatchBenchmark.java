@@ -0,0 +1,182 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package projects.chandra_toueg.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import projects.chandra_toueg.NodeRegistry;
+import projects.chandra_toueg.nodes.messages.AckMessage;
+import projects.chandra_toueg.nodes.messages.AllMHSentMessage;
+import projects.chandra_toueg.nodes.messages.BufferSizeMessage;
+import projects.chandra_toueg.nodes.messages.HeartbeatMessage;
+import projects.chandra_toueg.nodes.messages.MHValueMessage;
+import projects.chandra_toueg.nodes.messages.MessageKind;
+import projects.chandra_toueg.nodes.messages.NackMessage;
+import projects.chandra_toueg.nodes.messages.NextRoundMessage;
+import projects.chandra_toueg.nodes.messages.ProposeValueMessage;
+import projects.chandra_toueg.nodes.messages.ProposedValueDefinedMessage;
+import projects.chandra_toueg.nodes.messages.ProtocolMessage;
+import projects.chandra_toueg.nodes.messages.RoundMessage;
+import projects.chandra_toueg.nodes.messages.TryValueMessage;
+import projects.chandra_toueg.nodes.nodeImplementations.MSSNode;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Dispatch of the messages a MSS Node receives, with the mix of a step of the first round: mostly MH values, some
+// buffer sizes from the other MSS Nodes, heartbeats and the end of the MH values. The node dispatches by message kind;
+// instanceofChain dispatches the same messages through the chain of instanceof tests MSSNode used before, in the same
+// order (MH values were tested 7th), with the message types added since tested last, as a baseline.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class DispatchBenchmark {
+    private static final int MESSAGES = 1024;
+
+    @Param({"10", "100"})
+    private int mssNodes;
+
+    private MSSNode node;
+    private MSSNode[] senders;
+    private ProtocolMessage[] messages;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        BenchmarkConfiguration.load();
+        NodeRegistry.reset();
+        NodeRegistry registry = NodeRegistry.getInstance();
+
+        senders = new MSSNode[mssNodes];
+
+        for (int i = 0; i < mssNodes; i++) {
+            senders[i] = new MSSNode();
+            registry.register(senders[i]);
+        }
+
+        node = senders[0];
+        node.init();
+
+        Random random = new Random(42);
+        messages = new ProtocolMessage[MESSAGES];
+
+        for (int i = 0; i < MESSAGES; i++) {
+            int draw = random.nextInt(100);
+
+            if (draw < 80) {
+                messages[i] = new MHValueMessage(random.nextInt(), random.nextInt(1000));
+            } else if (draw < 95) {
+                messages[i] = new BufferSizeMessage(random.nextInt(100), random.nextInt(mssNodes), 0);
+            } else if (draw < 99) {
+                messages[i] = HeartbeatMessage.getInstance();
+            } else {
+                messages[i] = AllMHSentMessage.of(0);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public MSSNode kindDispatch() {
+        for (int i = 0; i < MESSAGES; i++) {
+            node.handleMessage(senders[i % mssNodes], messages[i]);
+        }
+
+        return node;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void instanceofChain(Blackhole blackhole) {
+        for (int i = 0; i < MESSAGES; i++) {
+            ProtocolMessage msg = messages[i];
+
+            if (msg instanceof ProposeValueMessage) {
+                blackhole.consume(msg);
+            } else if (msg instanceof TryValueMessage) {
+                blackhole.consume(msg);
+            } else if (msg instanceof AckMessage) {
+                blackhole.consume(msg);
+            } else if (msg instanceof NackMessage) {
+                blackhole.consume(msg);
+            } else if (msg instanceof ProposedValueDefinedMessage) {
+                blackhole.consume(msg);
+            } else if (msg instanceof NextRoundMessage) {
+                blackhole.consume(msg);
+            } else if (msg instanceof MHValueMessage) {
+                blackhole.consume(((MHValueMessage) msg).getValue());
+            } else if (msg instanceof BufferSizeMessage) {
+                blackhole.consume(((BufferSizeMessage) msg).getBufferSize());
+            } else if (msg instanceof AllMHSentMessage) {
+                blackhole.consume(((RoundMessage) msg).getRound());
+            } else if (msg instanceof HeartbeatMessage) {
+                blackhole.consume(msg);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void kindSwitch(Blackhole blackhole) {
+        for (int i = 0; i < MESSAGES; i++) {
+            ProtocolMessage msg = messages[i];
+
+            switch (msg.getKind()) {
+                case MessageKind.MH_VALUE:
+                    blackhole.consume(((MHValueMessage) msg).getValue());
+                    break;
+                case MessageKind.BUFFER_SIZE:
+                    blackhole.consume(((BufferSizeMessage) msg).getBufferSize());
+                    break;
+                case MessageKind.ALL_MH_SENT:
+                    blackhole.consume(((RoundMessage) msg).getRound());
+                    break;
+                default:
+                    blackhole.consume(msg);
+                    break;
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package projects.chandra_toueg.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import projects.chandra_toueg.nodes.messages.AckMessage;
+import projects.chandra_toueg.nodes.messages.EnvelopeMessage;
+import projects.chandra_toueg.nodes.messages.MHValueMessage;
+import projects.chandra_toueg.nodes.messages.ProposeValueMessage;
+import projects.chandra_toueg.nodes.messages.ProposedValueDefinedMessage;
+import sinalgo.nodes.messages.Message;
+
+import java.util.concurrent.TimeUnit;
+
+// Sinalgo clones every message it sends, once per receiver of a broadcast. The messages of the project are immutable,
+// so a clone is the message itself; these benchmarks keep that cost visible, next to the cost of building a message
+// and of getting a cached one.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class MessageCloneBenchmark {
+    private MHValueMessage mhValue;
+    private ProposeValueMessage proposal;
+    private ProposedValueDefinedMessage decision;
+    private EnvelopeMessage envelope;
+
+    private int round;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mhValue = new MHValueMessage(7, 3);
+        proposal = new ProposeValueMessage(7, 3, 10, 1, -1, 0, 0);
+        decision = new ProposedValueDefinedMessage(7);
+        envelope = new EnvelopeMessage();
+        envelope.add(proposal);
+        envelope.add(AckMessage.of(0, 0));
+    }
+
+    @Benchmark
+    public Message cloneMHValue() {
+        return mhValue.clone();
+    }
+
+    @Benchmark
+    public Message cloneProposal() {
+        return proposal.clone();
+    }
+
+    @Benchmark
+    public Message cloneDecision() {
+        return decision.clone();
+    }
+
+    @Benchmark
+    public Message cloneEnvelope() {
+        return envelope.clone();
+    }
+
+    @Benchmark
+    public Message newProposal() {
+        return new ProposeValueMessage(7, 3, 10, 1, -1, round++, 0);
+    }
+
+    @Benchmark
+    public Message cachedAck() {
+        return AckMessage.of(round++ & 0xFF, 0);
+    }
+}
@@ -0,0 +1,93 @@
+package projects.chandra_toueg.models.connectivityModels;
+
+import projects.chandra_toueg.nodes.nodeImplementations.MHNode;
+import projects.chandra_toueg.nodes.nodeImplementations.MSSNode;
+import sinalgo.configuration.Configuration;
+import sinalgo.exception.CorruptConfigurationEntryException;
+import sinalgo.nodes.Node;
+import sinalgo.runtime.Global;
+import sinalgo.runtime.Main;
+import sinalgo.runtime.SinalgoRuntime;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * MSS Nodes and MH Nodes of a simulation indexed by position, shared by the
+ * <code>MSSConnection</code> of every node. They belong to the simulation
+ * (see <code>NodeRegistry</code>), so the next simulation run in the same JVM
+ * reads the radius again and builds its own grids.
+ */
+public class ConnectivityGrids {
+    private final double rMaxSquare; // we reuse the rMax value from the GeometricNodeCollection.
+
+    private final SpatialGrid mssGrid;
+    private final SpatialGrid mhGrid;
+    private double builtAt = -1;
+    private int nodeCount = -1;
+
+    public ConnectivityGrids() throws CorruptConfigurationEntryException {
+        double geomNodeRMax = Configuration.getDoubleParameter("GeometricNodeCollection/rMax");
+        double rMax;
+
+        try {
+            rMax = Configuration.getDoubleParameter("UDG/rMax");
+        } catch (CorruptConfigurationEntryException e) {
+            Global.getLog().logln(
+                    "\nWARNING: Did not find an entry for UDG/rMax in the XML configuration file. Using GeometricNodeCollection/rMax.\n");
+            rMax = geomNodeRMax;
+        }
+
+        if (rMax > geomNodeRMax) { // dangerous! This is probably not what the user wants!
+            Main.minorError(
+                    "WARNING: The maximum transmission range used for the UDG connectivity model is larger than the maximum transmission range specified for the GeometricNodeCollection.\nAs a result, not all connections will be found! Either fix the problem in the project-specific configuration file or the '-overwrite' command line argument.");
+        }
+
+        mssGrid = new SpatialGrid(rMax);
+        mhGrid = new SpatialGrid(rMax);
+        rMaxSquare = rMax * rMax;
+    }
+
+    // adds to candidates the nodes n may be connected to: the MH Nodes around a MSS Node, the MSS Nodes around a MH Node
+    void collectCandidates(Node n, List<Node> candidates) {
+        refresh();
+
+        if (n instanceof MSSNode) {
+            mhGrid.collectCandidates(n.getPosition(), candidates);
+        } else if (n instanceof MHNode) {
+            mssGrid.collectCandidates(n.getPosition(), candidates);
+        }
+    }
+
+    boolean inRange(Node from, Node to) {
+        return from.getPosition().squareDistanceTo(to.getPosition()) < rMaxSquare;
+    }
+
+    // nodes only move between rounds, so the grids are rebuilt once per round (or when nodes are added or removed)
+    private void refresh() {
+        double now = Global.getCurrentTime();
+        int count = SinalgoRuntime.getNodes().size();
+
+        if (builtAt == now && nodeCount == count) {
+            return;
+        }
+
+        mssGrid.clear();
+        mhGrid.clear();
+
+        Iterator<Node> nodes = SinalgoRuntime.getNodes().iterator();
+
+        while (nodes.hasNext()) {
+            Node currentNode = nodes.next();
+
+            if (currentNode instanceof MSSNode) {
+                mssGrid.add(currentNode);
+            } else if (currentNode instanceof MHNode) {
+                mhGrid.add(currentNode);
+            }
+        }
+
+        builtAt = now;
+        nodeCount = count;
+    }
+}
@@ -1,51 +1,56 @@
 package projects.chandra_toueg.models.connectivityModels;
 
+import projects.chandra_toueg.NodeRegistry;
 import projects.chandra_toueg.nodes.nodeImplementations.MHNode;
 import projects.chandra_toueg.nodes.nodeImplementations.MSSNode;
-import sinalgo.configuration.Configuration;
 import sinalgo.exception.CorruptConfigurationEntryException;
+import sinalgo.exception.WrongConfigurationException;
 import sinalgo.models.ConnectivityModelHelper;
 import sinalgo.nodes.Node;
-import sinalgo.runtime.Global;
-import sinalgo.runtime.Main;
-import sinalgo.runtime.SinalgoRuntime;
 
-import java.util.HashMap;
+import java.util.ArrayList;
 
 public class MSSConnection extends ConnectivityModelHelper {
-    private static boolean initialized;
-    private static double rMaxSquare; // we reuse the rMax value from the GeometricNodeCollection.
+    // MSS Nodes and MH Nodes indexed by position, shared by the nodes of the simulation
+    private final ConnectivityGrids grids;
+
+    private final ArrayList<Node> candidates = new ArrayList<>();
 
     public MSSConnection() throws CorruptConfigurationEntryException {
-        if(!initialized) {
-            double geomNodeRMax = Configuration.getDoubleParameter("GeometricNodeCollection/rMax");
-
-            try {
-                rMaxSquare = Configuration.getDoubleParameter("UDG/rMax");
-            } catch (CorruptConfigurationEntryException e) {
-                Global.getLog().logln(
-                        "\nWARNING: Did not find an entry for UDG/rMax in the XML configuration file. Using GeometricNodeCollection/rMax.\n");
-                rMaxSquare = geomNodeRMax;
-            }
+        NodeRegistry registry = NodeRegistry.getInstance();
 
-            if (rMaxSquare > geomNodeRMax) { // dangerous! This is probably not what the user wants!
-                Main.minorError(
-                        "WARNING: The maximum transmission range used for the UDG connectivity model is larger than the maximum transmission range specified for the GeometricNodeCollection.\nAs a result, not all connections will be found! Either fix the problem in the project-specific configuration file or the '-overwrite' command line argument.");
-            }
+        if (registry.getConnectivityGrids() == null) {
+            registry.setConnectivityGrids(new ConnectivityGrids());
+        }
+
+        grids = registry.getConnectivityGrids();
+    }
 
-            rMaxSquare = rMaxSquare * rMaxSquare;
-            initialized = true;
+    // Instead of checking every possible neighbour given by the node collection, a MH Node only checks the MSS Nodes
+    // in the grid cells around it, and a MSS Node the MH Nodes in the cells around it.
+    @Override
+    public boolean updateConnections(Node n) throws WrongConfigurationException {
+        boolean edgeAdded = false;
+
+        candidates.clear();
+        grids.collectCandidates(n, candidates);
+
+        for (Node possibleNeighbor : candidates) {
+            if (n.getID() != possibleNeighbor.getID() && isConnected(n, possibleNeighbor)) {
+                edgeAdded = !n.getOutgoingConnections().add(n, possibleNeighbor, true) || edgeAdded;
+            }
         }
+
+        boolean dyingLinks = n.getOutgoingConnections().removeInvalidLinks();
+
+        return edgeAdded || dyingLinks;
     }
 
-    // all MSS Nodes are connected to each other
+    // MSS Nodes are not connected by edges, they reach each other through the backbone (see MSSNode)
     @Override
     protected boolean isConnected(Node from, Node to) {
-        if (from instanceof MSSNode && to instanceof MSSNode) {
-            return true;
-        } else if (from instanceof MSSNode && to instanceof MHNode || from instanceof MHNode && to instanceof MSSNode) {
-            double dist = from.getPosition().squareDistanceTo(to.getPosition());
-            return dist < rMaxSquare;
+        if (from instanceof MSSNode && to instanceof MHNode || from instanceof MHNode && to instanceof MSSNode) {
+            return grids.inRange(from, to);
         }
 
         return false;
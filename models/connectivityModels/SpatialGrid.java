@@ -0,0 +1,74 @@
+package projects.chandra_toueg.models.connectivityModels;
+
+import sinalgo.nodes.Node;
+import sinalgo.nodes.Position;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Uniform grid that groups nodes by position. The cells are as large as the
+ * MSS Node radius, so every node closer than the radius to a given position is
+ * stored in the cell of that position or in one of its adjacent cells.
+ */
+class SpatialGrid {
+    private final double cellSize;
+    private final Map<Long, ArrayList<Node>> cells = new HashMap<>();
+
+    // while all nodes are in the z = 0 plane there is no need to look at the cells above and below
+    private boolean flat = true;
+
+    SpatialGrid(double cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    void clear() {
+        // keep the cell lists to reuse them when the grid is filled again
+        for (ArrayList<Node> cell : cells.values()) {
+            cell.clear();
+        }
+
+        flat = true;
+    }
+
+    void add(Node node) {
+        Position position = node.getPosition();
+        int cz = cellOf(position.getZCoord());
+
+        if (cz != 0) {
+            flat = false;
+        }
+
+        cells.computeIfAbsent(key(cellOf(position.getXCoord()), cellOf(position.getYCoord()), cz), k -> new ArrayList<>()).add(node);
+    }
+
+    // adds to candidates all nodes in the cell of the given position and in its adjacent cells
+    void collectCandidates(Position position, List<Node> candidates) {
+        int cx = cellOf(position.getXCoord());
+        int cy = cellOf(position.getYCoord());
+        int cz = cellOf(position.getZCoord());
+        int dzRange = flat && cz == 0 ? 0 : 1;
+
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dz = -dzRange; dz <= dzRange; dz++) {
+                    ArrayList<Node> cell = cells.get(key(cx + dx, cy + dy, cz + dz));
+
+                    if (cell != null) {
+                        candidates.addAll(cell);
+                    }
+                }
+            }
+        }
+    }
+
+    private int cellOf(double coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    private static long key(int cx, int cy, int cz) {
+        return ((long) (cx & 0x1FFFFF) << 42) | ((long) (cy & 0x1FFFFF) << 21) | (cz & 0x1FFFFF);
+    }
+}
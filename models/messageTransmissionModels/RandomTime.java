@@ -39,6 +39,7 @@ package projects.chandra_toueg.models.messageTransmissionModels;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import projects.chandra_toueg.SimulationStatistics;
 import sinalgo.exception.CorruptConfigurationEntryException;
 import sinalgo.nodes.Node;
 import sinalgo.nodes.messages.Message;
@@ -57,6 +58,9 @@ import sinalgo.tools.statistics.Distribution;
  * <p>
  * If the distribution returns a value smaller or equal to 0, the transmission
  * time is set to the small positive value 1e-9.
+ * <p>
+ * Every message sent goes through this model, so it also counts them for
+ * the <code>SimulationStatistics</code>.
  */
 public class RandomTime extends sinalgo.models.MessageTransmissionModel {
 
@@ -76,6 +80,8 @@ public class RandomTime extends sinalgo.models.MessageTransmissionModel {
 
     @Override
     public double timeToReach(Node startNode, Node endNode, Message msg) {
+        SimulationStatistics.getInstance().countMessage(msg);
+
         double time = this.getDist().nextSample();
         if (time <= 0) {
             time = 1e-9;
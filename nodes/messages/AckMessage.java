@@ -36,17 +36,22 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 */
 package projects.chandra_toueg.nodes.messages;
 
-import lombok.Getter;
-import lombok.Setter;
 import sinalgo.nodes.messages.Message;
 
-public class AckMessage extends Message {
-    public AckMessage() {
+public class AckMessage extends RoundMessage {
+    private static final RoundMessageCache<AckMessage> cache = new RoundMessageCache<>(AckMessage::new);
+
+    public AckMessage(int round, int instance) {
+        super(MessageKind.ACK, round, instance);
+    }
+
+    public static AckMessage of(int round, int instance) {
+        return cache.get(round, instance);
     }
 
     @Override
     public Message clone() {
-        return new AckMessage();
+        return this;
     }
 
 }
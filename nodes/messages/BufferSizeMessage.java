@@ -37,26 +37,24 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package projects.chandra_toueg.nodes.messages;
 
 import lombok.Getter;
-import lombok.Setter;
 import sinalgo.nodes.messages.Message;
 
-public class BufferSizeMessage extends Message {
+public class BufferSizeMessage extends RoundMessage {
     @Getter
-    @Setter
-    private int bufferSize;
+    private final int bufferSize;
 
     @Getter
-    @Setter
-    private int id;
+    private final int id;
 
-    public BufferSizeMessage(int bufferSize, int id) {
-        this.setBufferSize(bufferSize);
-        this.setId(id);
+    public BufferSizeMessage(int bufferSize, int id, int round) {
+        super(MessageKind.BUFFER_SIZE, round);
+        this.bufferSize = bufferSize;
+        this.id = id;
     }
 
     @Override
     public Message clone() {
-        return new BufferSizeMessage(this.getBufferSize(), this.getId());
+        return this;
     }
 
 }
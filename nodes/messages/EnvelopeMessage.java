@@ -0,0 +1,80 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package projects.chandra_toueg.nodes.messages;
+
+import sinalgo.nodes.messages.Message;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Carries several messages sent by a node to the same destination during a
+ * step, so that they are transmitted (and cloned) only once. The receiver
+ * handles the payloads in the order they were added.
+ */
+public class EnvelopeMessage extends ProtocolMessage {
+    private final List<Message> payloads;
+
+    public EnvelopeMessage() {
+        super(MessageKind.ENVELOPE);
+        this.payloads = new ArrayList<>();
+    }
+
+    public void add(Message msg) {
+        payloads.add(msg);
+    }
+
+    public List<Message> getPayloads() {
+        return payloads;
+    }
+
+    public boolean isEmpty() {
+        return payloads.isEmpty();
+    }
+
+    // a single payload is sent as it is, without the envelope
+    public Message unwrap() {
+        return payloads.size() == 1 ? payloads.get(0) : this;
+    }
+
+    // the envelope is not changed once sent
+    @Override
+    public Message clone() {
+        return this;
+    }
+
+}
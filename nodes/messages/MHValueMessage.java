@@ -37,26 +37,24 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package projects.chandra_toueg.nodes.messages;
 
 import lombok.Getter;
-import lombok.Setter;
 import sinalgo.nodes.messages.Message;
 
-public class MHValueMessage extends Message {
+public class MHValueMessage extends ProtocolMessage {
     @Getter
-    @Setter
-    private int value;
+    private final int value;
 
     @Getter
-    @Setter
-    private int timestamp;
+    private final int timestamp;
 
     public MHValueMessage(int value, int ts) {
-        this.setValue(value);
-        this.setTimestamp(ts);
+        super(MessageKind.MH_VALUE);
+        this.value = value;
+        this.timestamp = ts;
     }
 
     @Override
     public Message clone() {
-        return new MHValueMessage(this.getValue(), this.getTimestamp());
+        return this;
     }
 
 }
@@ -0,0 +1,74 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package projects.chandra_toueg.nodes.messages;
+
+/**
+ * Small integer identifying the type of each message, so that nodes dispatch
+ * a message with a <code>switch</code> on its kind instead of testing it
+ * against every message class. The kinds of the round messages come first.
+ */
+public final class MessageKind {
+    public static final int PROPOSE_VALUE = 0;
+    public static final int TRY_VALUE = 1;
+    public static final int ACK = 2;
+    public static final int NACK = 3;
+    public static final int NEXT_ROUND = 4;
+    public static final int BUFFER_SIZE = 5;
+    public static final int ALL_MH_SENT = 6;
+
+    public static final int PROPOSED_VALUE_DEFINED = 7;
+    public static final int MH_VALUE = 8;
+    public static final int NOTIFY_ROUND = 9;
+    public static final int HEARTBEAT = 10;
+    public static final int ENVELOPE = 11;
+
+    public static final int COUNT = 12;
+
+    private static final String[] NAMES = {"ProposeValue", "TryValue", "Ack", "Nack", "NextRound", "BufferSize",//
+            "AllMHSent", "ProposedValueDefined", "MHValue", "NotifyRound", "Heartbeat", "Envelope"};
+
+    private MessageKind() {
+    }
+
+    public static String name(int kind) {
+        return NAMES[kind];
+    }
+
+    public static boolean isRoundMessage(int kind) {
+        return kind <= ALL_MH_SENT;
+    }
+}
@@ -38,13 +38,20 @@ package projects.chandra_toueg.nodes.messages;
 
 import sinalgo.nodes.messages.Message;
 
-public class NackMessage extends Message {
-    public NackMessage() {
+public class NackMessage extends RoundMessage {
+    private static final RoundMessageCache<NackMessage> cache = new RoundMessageCache<>(NackMessage::new);
+
+    public NackMessage(int round, int instance) {
+        super(MessageKind.NACK, round, instance);
+    }
+
+    public static NackMessage of(int round, int instance) {
+        return cache.get(round, instance);
     }
 
     @Override
     public Message clone() {
-        return new NackMessage();
+        return this;
     }
 
 }
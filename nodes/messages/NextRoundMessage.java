@@ -38,13 +38,22 @@ package projects.chandra_toueg.nodes.messages;
 
 import sinalgo.nodes.messages.Message;
 
-public class NextRoundMessage extends Message {
-    public NextRoundMessage() {
+// the round of this message is the round the MSS Nodes must move to. With the replicated log, the coordinator of a
+// new instance also sends it to announce the instance, so that every MSS Node joins it.
+public class NextRoundMessage extends RoundMessage {
+    private static final RoundMessageCache<NextRoundMessage> cache = new RoundMessageCache<>(NextRoundMessage::new);
+
+    public NextRoundMessage(int round, int instance) {
+        super(MessageKind.NEXT_ROUND, round, instance);
+    }
+
+    public static NextRoundMessage of(int round, int instance) {
+        return cache.get(round, instance);
     }
 
     @Override
     public Message clone() {
-        return new NextRoundMessage();
+        return this;
     }
 
 }
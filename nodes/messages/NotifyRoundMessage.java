@@ -37,21 +37,35 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package projects.chandra_toueg.nodes.messages;
 
 import lombok.Getter;
-import lombok.Setter;
 import sinalgo.nodes.messages.Message;
 
-public class NotifyRoundMessage extends Message {
+public class NotifyRoundMessage extends ProtocolMessage {
     @Getter
-    @Setter
-    private int round;
+    private final int round;
+
+    // every MSS Node notifies its cell of the same rounds, so the last notification of each slot is kept
+    private static final NotifyRoundMessage[] cache = new NotifyRoundMessage[256];
 
     public NotifyRoundMessage(int round) {
+        super(MessageKind.NOTIFY_ROUND);
         this.round = round;
     }
 
+    public static NotifyRoundMessage of(int round) {
+        int slot = round & (cache.length - 1);
+        NotifyRoundMessage msg = cache[slot];
+
+        if (msg == null || msg.getRound() != round) {
+            msg = new NotifyRoundMessage(round);
+            cache[slot] = msg;
+        }
+
+        return msg;
+    }
+
     @Override
     public Message clone() {
-        return new NotifyRoundMessage(getRound());
+        return this;
     }
 
 }
@@ -37,26 +37,39 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package projects.chandra_toueg.nodes.messages;
 
 import lombok.Getter;
-import lombok.Setter;
 import sinalgo.nodes.messages.Message;
 
-public class ProposeValueMessage extends Message {
+public class ProposeValueMessage extends RoundMessage {
     @Getter
-    @Setter
-    private int value;
+    private final int value;
 
     @Getter
-    @Setter
-    private int timestamp;
+    private final int timestamp;
 
-    public ProposeValueMessage(int value, int ts) {
-        this.setValue(value);
-        this.setTimestamp(ts);
+    // number of MH values batched in the proposal
+    @Getter
+    private final int batchSize;
+
+    // MSS Node whose batch is proposed, which is not the sender when a region leader forwards it
+    @Getter
+    private final int proposer;
+
+    // round in which the proposed value was tried and ACKed by the proposer, -1 when it is not such an estimate
+    @Getter
+    private final int estimateRound;
+
+    public ProposeValueMessage(int value, int ts, int batchSize, int proposer, int estimateRound, int round, int instance) {
+        super(MessageKind.PROPOSE_VALUE, round, instance);
+        this.value = value;
+        this.timestamp = ts;
+        this.batchSize = batchSize;
+        this.proposer = proposer;
+        this.estimateRound = estimateRound;
     }
 
     @Override
     public Message clone() {
-        return new ProposeValueMessage(this.getValue(), this.getTimestamp());
+        return this;
     }
 
 }
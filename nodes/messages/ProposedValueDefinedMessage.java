@@ -37,21 +37,37 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package projects.chandra_toueg.nodes.messages;
 
 import lombok.Getter;
-import lombok.Setter;
 import sinalgo.nodes.messages.Message;
 
-public class ProposedValueDefinedMessage extends Message {
+public class ProposedValueDefinedMessage extends ProtocolMessage {
     @Getter
-    @Setter
-    private int value;
+    private final int value;
+
+    // consensus instance decided, and the size and proposer of the batch it commits
+    @Getter
+    private final int instance;
+
+    @Getter
+    private final int batchSize;
+
+    @Getter
+    private final int proposer;
 
     public ProposedValueDefinedMessage(int value) {
-        this.setValue(value);
+        this(value, 0, 0, 0);
+    }
+
+    public ProposedValueDefinedMessage(int value, int instance, int batchSize, int proposer) {
+        super(MessageKind.PROPOSED_VALUE_DEFINED);
+        this.value = value;
+        this.instance = instance;
+        this.batchSize = batchSize;
+        this.proposer = proposer;
     }
 
     @Override
     public Message clone() {
-        return new ProposedValueDefinedMessage(this.getValue());
+        return this;
     }
 
 }
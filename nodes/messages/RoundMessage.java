@@ -0,0 +1,69 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package projects.chandra_toueg.nodes.messages;
+
+import lombok.Getter;
+
+/**
+ * Message exchanged between MSS Nodes that only makes sense in the round it
+ * was sent in. MSS Nodes drop it if they are already in a later round, and
+ * jump to its round if they are behind. With the replicated log, the message
+ * also carries the consensus instance it belongs to, otherwise the instance is
+ * always 0.
+ * <p>
+ * Like every message of this project, it is immutable, so <code>clone</code>
+ * returns the message itself and all receivers share it. Messages without any
+ * other payload are taken from a cache with <code>of</code>.
+ */
+public abstract class RoundMessage extends ProtocolMessage {
+    @Getter
+    private final int round;
+
+    @Getter
+    private final int instance;
+
+    public RoundMessage(int kind, int round) {
+        this(kind, round, 0);
+    }
+
+    public RoundMessage(int kind, int round, int instance) {
+        super(kind);
+        this.round = round;
+        this.instance = instance;
+    }
+
+}
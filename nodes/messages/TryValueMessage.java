@@ -37,21 +37,33 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package projects.chandra_toueg.nodes.messages;
 
 import lombok.Getter;
-import lombok.Setter;
 import sinalgo.nodes.messages.Message;
 
-public class TryValueMessage extends Message {
+public class TryValueMessage extends RoundMessage {
     @Getter
-    @Setter
-    private int value;
+    private final int value;
 
-    public TryValueMessage(int value) {
-        this.setValue(value);
+    // batch size and proposer of the value tried, kept by the MSS Nodes that ACK it (see ConsensusInstance.estimate)
+    @Getter
+    private final int batchSize;
+
+    @Getter
+    private final int proposer;
+
+    public TryValueMessage(int value, int round, int instance) {
+        this(value, 1, 0, round, instance);
+    }
+
+    public TryValueMessage(int value, int batchSize, int proposer, int round, int instance) {
+        super(MessageKind.TRY_VALUE, round, instance);
+        this.value = value;
+        this.batchSize = batchSize;
+        this.proposer = proposer;
     }
 
     @Override
     public Message clone() {
-        return new TryValueMessage(this.getValue());
+        return this;
     }
 
 }
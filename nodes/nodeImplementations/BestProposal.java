@@ -0,0 +1,130 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package projects.chandra_toueg.nodes.nodeImplementations;
+
+import lombok.Getter;
+
+/**
+ * Keeps only the most recent proposal received, with the same order used by
+ * <code>MHValueComparator</code> and <code>ProposeValueComparator</code>:
+ * highest timestamp first and, for equal timestamps, highest value first. It
+ * replaces a buffer of messages that would be sorted just to read its first
+ * element.
+ * <p>
+ * Estimates (values ACKed in a round, which may have been decided) come
+ * before any other proposal, the one of the highest round first, as in the
+ * Chandra-Toueg algorithm.
+ */
+public class BestProposal {
+    @Getter
+    private int value;
+
+    @Getter
+    private int timestamp;
+
+    // MSS Node that proposed the best value and how many MH values its batch holds, when the proposals are batches
+    @Getter
+    private int proposer;
+
+    @Getter
+    private int batchSize;
+
+    // round in which the best value was ACKed, -1 when it is not an estimate
+    @Getter
+    private int estimateRound = -1;
+
+    private int size;
+
+    // whether all proposals added so far carry the same value
+    @Getter
+    private boolean unanimous;
+
+    public void add(int value, int timestamp) {
+        add(value, timestamp, 0, 1);
+    }
+
+    public void add(int value, int timestamp, int proposer, int batchSize) {
+        add(value, timestamp, proposer, batchSize, -1);
+    }
+
+    public void add(int value, int timestamp, int proposer, int batchSize, int estimateRound) {
+        unanimous = size == 0 || unanimous && value == this.value;
+
+        if (size == 0 || estimateRound > this.estimateRound || estimateRound == this.estimateRound//
+                && (timestamp > this.timestamp || timestamp == this.timestamp && value > this.value)) {
+            this.value = value;
+            this.timestamp = timestamp;
+            this.proposer = proposer;
+            this.batchSize = batchSize;
+            this.estimateRound = estimateRound;
+        }
+
+        size++;
+    }
+
+    // merges the values kept by other, which are counted as if they had been added one by one
+    public void addAll(BestProposal other) {
+        if (other.isEmpty()) {
+            return;
+        }
+
+        int otherSize = other.size;
+        boolean otherUnanimous = other.unanimous;
+
+        add(other.value, other.timestamp, other.proposer, other.batchSize, other.estimateRound);
+        size += otherSize - 1;
+        unanimous = unanimous && otherUnanimous;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        value = 0;
+        timestamp = 0;
+        proposer = 0;
+        batchSize = 0;
+        estimateRound = -1;
+        size = 0;
+        unanimous = false;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package projects.chandra_toueg.nodes.nodeImplementations;
+
+import lombok.Getter;
+
+/**
+ * State of one consensus instance run by a MSS Node. Without the replicated
+ * log a MSS Node runs a single instance, numbered 0. With it, the instances
+ * form a log and up to <code>ReplicatedLog/pipelineDepth</code> of them are in
+ * flight at the same time, each one with its own rounds and coordinator.
+ */
+@Getter
+public class ConsensusInstance {
+    final int id;
+
+    int round = 0;
+
+    int coordinatorId;
+    MSSNode coordinator;
+
+    boolean decided = false;
+    boolean propose = false;
+    boolean allMHSent = false;
+    boolean coordinatorAlreadyProposedValue = false;
+    boolean coordinatorAnswered = false;
+
+    // whether the coordinator has announced the instance in the current round, with the replicated log
+    boolean announced = false;
+
+    int proposedValue;
+
+    // MH values this node proposes in the instance, with the replicated log
+    BestProposal batch = new BestProposal();
+
+    BestProposal coordinatorBuffer = new BestProposal();
+    QuorumTracker proposersBuffer = new QuorumTracker();
+    QuorumTracker ackBuffer = new QuorumTracker();
+    QuorumTracker nackBuffer = new QuorumTracker();
+
+    // proposals of the region gathered by its leader with the hierarchy, whether the best one has been forwarded to
+    // the coordinator, and the last round relayed to the region
+    BestProposal regionBuffer = new BestProposal();
+    QuorumTracker regionProposers = new QuorumTracker();
+    boolean regionProposed = false;
+    int relayedRound = 0;
+
+    // proposal tried by the coordinator in round leaderEstimateRound, tried again right away in stable leader mode when
+    // the same node coordinates the next round
+    BestProposal leaderEstimate = new BestProposal();
+    int leaderEstimateRound = -1;
+
+    // value this node ACKed most recently, with the round it was tried in as its estimate round. From then on the node
+    // proposes it instead of its own MH values, so the coordinators of the next rounds never try a value other than
+    // one that may have been decided.
+    BestProposal estimate = new BestProposal();
+
+    // batch size and proposer of the value tried by the coordinator
+    int proposedBatchSize;
+    int proposerId;
+
+    // when this node sent its proposal to the coordinator in the current round, to measure the coordinator latency
+    double proposedAt = -1;
+
+    double majorityReachedAt = -1;
+    int timedRound = -1;
+
+    public ConsensusInstance(int id) {
+        this.id = id;
+    }
+
+    // the batch and allMHSent are not part of the round, as they do not change with it when the log is replicated
+    void resetRound() {
+        propose = false;
+        proposedValue = 0;
+        coordinatorAlreadyProposedValue = false;
+        coordinatorAnswered = false;
+        announced = false;
+        proposedAt = -1;
+        majorityReachedAt = -1;
+        regionProposed = false;
+        regionBuffer.clear();
+        regionProposers.clear();
+        coordinatorBuffer.clear();
+        proposersBuffer.clear();
+        ackBuffer.clear();
+        nackBuffer.clear();
+    }
+}
@@ -0,0 +1,180 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package projects.chandra_toueg.nodes.nodeImplementations;
+
+import lombok.Getter;
+import sinalgo.configuration.Configuration;
+import sinalgo.exception.CorruptConfigurationEntryException;
+
+import java.util.Arrays;
+
+/**
+ * Eventually strong failure detector used by the MSS Nodes to decide whether
+ * they trust the coordinator. It is a phi accrual failure detector: for each
+ * monitored node it keeps the last inter-arrival times of its heartbeats and
+ * suspects the node when the time since the last heartbeat becomes too unlikely
+ * (phi above the threshold) given that history. Any message received from a
+ * node counts as a heartbeat.
+ * <p>
+ * This class reads its parameters from the configuration file, using the
+ * defaults below when they are not set.
+ *
+ * <pre>
+ * &lt;FailureDetector heartbeatInterval="1" phiThreshold="8" windowSize="100" minStdDeviation="0.1"/&gt;
+ * </pre>
+ */
+public class FailureDetector {
+    // how often (in time units) a coordinator sends a heartbeat when it has nothing else to send
+    @Getter
+    private double heartbeatInterval = 1;
+
+    private double phiThreshold = 8;
+    private int windowSize = 100;
+    private double minStdDeviation = 0.1;
+
+    // heartbeat history of each monitored node, indexed by node id
+    private HeartbeatHistory[] histories = new HeartbeatHistory[16];
+
+    public FailureDetector() throws CorruptConfigurationEntryException {
+        if (Configuration.hasParameter("FailureDetector/heartbeatInterval")) {
+            heartbeatInterval = Configuration.getDoubleParameter("FailureDetector/heartbeatInterval");
+        }
+        if (Configuration.hasParameter("FailureDetector/phiThreshold")) {
+            phiThreshold = Configuration.getDoubleParameter("FailureDetector/phiThreshold");
+        }
+        if (Configuration.hasParameter("FailureDetector/windowSize")) {
+            windowSize = Configuration.getIntegerParameter("FailureDetector/windowSize");
+        }
+        if (Configuration.hasParameter("FailureDetector/minStdDeviation")) {
+            minStdDeviation = Configuration.getDoubleParameter("FailureDetector/minStdDeviation");
+        }
+    }
+
+    // Starts (or restarts) monitoring a node, as if a heartbeat had just arrived. The intervals already known for
+    // this node are kept.
+    public void monitor(int nodeId, double now) {
+        if (nodeId >= histories.length) {
+            histories = Arrays.copyOf(histories, Math.max(nodeId + 1, histories.length * 2));
+        }
+
+        if (histories[nodeId] == null) {
+            histories[nodeId] = new HeartbeatHistory(windowSize, heartbeatInterval);
+        }
+
+        histories[nodeId].lastArrival = now;
+    }
+
+    // only monitored nodes are tracked, heartbeats from other nodes are ignored
+    public void heartbeat(int nodeId, double now) {
+        if (nodeId < histories.length && histories[nodeId] != null) {
+            histories[nodeId].add(now);
+        }
+    }
+
+    public boolean suspects(int nodeId, double now) {
+        return phi(nodeId, now) > phiThreshold;
+    }
+
+    public double phi(int nodeId, double now) {
+        if (nodeId >= histories.length || histories[nodeId] == null) {
+            return 0;
+        }
+
+        HeartbeatHistory history = histories[nodeId];
+        double elapsed = now - history.lastArrival;
+        double mean = history.mean();
+        double stdDeviation = Math.max(history.stdDeviation(), minStdDeviation);
+
+        // logistic approximation of the cumulative normal distribution
+        double y = (elapsed - mean) / stdDeviation;
+        double e = Math.exp(-y * (1.5976 + 0.070566 * y * y));
+
+        if (elapsed > mean) {
+            return -Math.log10(e / (1.0 + e));
+        } else {
+            return -Math.log10(1.0 - 1.0 / (1.0 + e));
+        }
+    }
+
+    private static class HeartbeatHistory {
+        private final double[] intervals;
+        private int next;
+        private int size;
+        private double sum;
+        private double squaresSum;
+        private double lastArrival;
+
+        HeartbeatHistory(int windowSize, double firstInterval) {
+            intervals = new double[windowSize];
+
+            // bootstrap with the expected interval, so a node that never sends anything is eventually suspected
+            addInterval(firstInterval);
+            addInterval(firstInterval + firstInterval / 4);
+        }
+
+        void add(double arrival) {
+            // several messages in the same instant are a single heartbeat
+            if (arrival > lastArrival) {
+                addInterval(arrival - lastArrival);
+                lastArrival = arrival;
+            }
+        }
+
+        private void addInterval(double interval) {
+            if (size == intervals.length) {
+                sum -= intervals[next];
+                squaresSum -= intervals[next] * intervals[next];
+            } else {
+                size++;
+            }
+
+            intervals[next] = interval;
+            sum += interval;
+            squaresSum += interval * interval;
+            next = (next + 1) % intervals.length;
+        }
+
+        double mean() {
+            return sum / size;
+        }
+
+        double stdDeviation() {
+            double mean = mean();
+            return Math.sqrt(Math.max(squaresSum / size - mean * mean, 0));
+        }
+    }
+}
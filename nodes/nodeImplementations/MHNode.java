@@ -39,7 +39,10 @@ package projects.chandra_toueg.nodes.nodeImplementations;
 import lombok.Getter;
 import lombok.Setter;
 import projects.chandra_toueg.LogL;
+import projects.chandra_toueg.NodeRegistry;
 import projects.chandra_toueg.nodes.messages.*;
+import sinalgo.configuration.Configuration;
+import sinalgo.exception.CorruptConfigurationEntryException;
 import sinalgo.exception.WrongConfigurationException;
 import sinalgo.gui.transformation.PositionTransformation;
 import sinalgo.nodes.Node;
@@ -62,6 +65,11 @@ public class MHNode extends Node {
     int round = 0;
     int proposedValue = (int) this.getID();
 
+    // with the replicated log, a new value is proposed every proposalInterval rounds instead of once per round
+    boolean replicatedLog = false;
+    int proposalInterval = 10;
+    int nextProposalAt = 0;
+
     Logging logger = Logging.getLogger("mh_logfile.txt");
 
     @Override
@@ -70,11 +78,29 @@ public class MHNode extends Node {
             Message msg = inbox.next();
             Node sender = inbox.getSender();
 
-            if (msg instanceof NotifyRoundMessage) {
+            // every message of this project is a ProtocolMessage
+            ProtocolMessage protocolMessage = (ProtocolMessage) msg;
+
+            if (protocolMessage.getKind() == MessageKind.ENVELOPE) {
+                for (Message payload : ((EnvelopeMessage) msg).getPayloads()) {
+                    handleMessage(sender, (ProtocolMessage) payload);
+                }
+            } else {
+                handleMessage(sender, protocolMessage);
+            }
+        }
+    }
+
+    private void handleMessage(Node sender, ProtocolMessage msg) {
+        switch (msg.getKind()) {
+            case MessageKind.NOTIFY_ROUND:
                 handleNotifyRoundMessage(sender, (NotifyRoundMessage) msg);
-            } else if (msg instanceof ProposedValueDefinedMessage) {
+                break;
+            case MessageKind.PROPOSED_VALUE_DEFINED:
                 handleProposedValueDefinedMessage(sender, (ProposedValueDefinedMessage) msg);
-            }
+                break;
+            default:
+                break;
         }
     }
 
@@ -88,6 +114,7 @@ public class MHNode extends Node {
     private void handleProposedValueDefinedMessage(Node sender, ProposedValueDefinedMessage msg) {
         if (!decided) {
             logger.logln(LogL.infoLog, "[MHNode " + this.getID() + "] consensus reached at " + ts);
+            NodeRegistry.getInstance().markDecided(this);
         }
 
         decided = true;
@@ -97,7 +124,13 @@ public class MHNode extends Node {
     @Override
     public void preStep() {
         MSSNode mssNodeConnectedTo = getMSSConnected();
-        if (!proposed && mssNodeConnectedTo != null) {
+
+        if (replicatedLog) {
+            if (ts >= nextProposalAt && mssNodeConnectedTo != null) {
+                nextProposalAt = ts + proposalInterval;
+                proposeValueToMSS(mssNodeConnectedTo);
+            }
+        } else if (!proposed && mssNodeConnectedTo != null) {
             proposeValueToMSS(mssNodeConnectedTo);
         }
     }
@@ -110,7 +143,14 @@ public class MHNode extends Node {
 
     @Override
     public void init() {
-
+        try {
+            if (Configuration.hasParameter("ReplicatedLog/enabled")) {
+                replicatedLog = Configuration.getBooleanParameter("ReplicatedLog/enabled");
+                proposalInterval = Configuration.getIntegerParameter("ReplicatedLog/proposalInterval");
+            }
+        } catch (CorruptConfigurationEntryException e) {
+            e.printStackTrace();
+        }
     }
 
     @Override
@@ -40,52 +40,133 @@ import lombok.Getter;
 import lombok.Setter;
 import projects.chandra_toueg.nodes.messages.*;
 import projects.chandra_toueg.LogL;
+import projects.chandra_toueg.NodeRegistry;
+import projects.chandra_toueg.nodes.timers.RoundTimer;
 import sinalgo.configuration.Configuration;
 import sinalgo.exception.CorruptConfigurationEntryException;
 import sinalgo.exception.SinalgoFatalException;
 import sinalgo.exception.WrongConfigurationException;
 import sinalgo.gui.transformation.PositionTransformation;
 import sinalgo.nodes.Node;
+import sinalgo.nodes.edges.Edge;
 import sinalgo.nodes.messages.Inbox;
 import sinalgo.nodes.messages.Message;
-import sinalgo.runtime.SinalgoRuntime;
+import sinalgo.runtime.Global;
+import sinalgo.tools.Tools;
 import sinalgo.tools.logging.Logging;
+import sinalgo.tools.storage.ReusableListIterator;
 
 import java.awt.*;
 import java.nio.Buffer;
 import java.util.*;
-
 @Getter
 @Setter
 public class MSSNode extends Node {
-    private static int radius;
+    // read by every node instead of once per JVM, so that simulations run one after another use their own configuration
+    private int radius;
+
+    // round of the single consensus instance, when the log is not replicated
     int round = 0;
 
     int totalMSSNodes;
     int totalMHNodes;
 
+    // whether the single consensus instance has been decided, when the log is not replicated
     boolean decided = false;
-    boolean propose = false;
-    boolean allMHSent = false;
-    boolean coordinatorAlreadyProposedValue = false;
 
-    int coordinatorId = 1;
-    MSSNode coordinator;
-    ArrayList<ProposeValueMessage> coordinatorBuffer;
-    ArrayList<AckMessage> ackBuffer;
-    ArrayList<NackMessage> nackBuffer;
-    ArrayList<MHValueMessage> mssBuffer;
+    // coordinator of the instance opened or moved to a new round most recently. Ids start at 1, so 0 means there is
+    // none yet.
+    int coordinatorId = 0;
+
+    // instances opened and not decided yet, by id, and the id of the next instance to open. Instances below
+    // nextInstance that are not open have already been decided.
+    TreeMap<Integer, ConsensusInstance> instances = new TreeMap<>();
+    int nextInstance = 0;
+    ArrayList<ConsensusInstance> stepInstances = new ArrayList<>();
+
+    // MH values received and not proposed yet
+    BestProposal mssBuffer;
 
     Map<Integer, Integer> mssBuffersMap;
+    int totalBuffersSize = 0;
 
+    // buffer size last reported and the node it was reported to, the coordinator or the region leader
+    int reportedBufferSize = 0;
+    MSSNode reportedTo;
+
+    // last value decided, and how many instances this node has decided
     int proposedValue;
+    int decidedInstances = 0;
     int ts = 0;
 
+    // last round notified to the MH Nodes in range
+    int notifiedRound = 0;
+
+    // MH Nodes in range after the last neighbourhood change, used to find out which ones have just joined the cell
+    BitSet cellMembers = new BitSet();
+    BitSet previousCellMembers = new BitSet();
+
+    // MH Nodes this node has already sent the decision to
+    BitSet informedMHs = new BitSet();
+
+    // the decision, sent as it is to every MH Node in range
+    ProposedValueDefinedMessage decision;
+
+    // probability of answering a trusted coordinator with a NACK anyway, to inject faults
     double nackProbability = 0.0;
 
+    FailureDetector failureDetector;
+
+    // Once this node holds MH values, a round that does not finish within roundTimeout is skipped. The timeout grows by
+    // timeoutBackoff on every failed round and shrinks by timeoutDecrease when consensus is reached.
+    double roundTimeout = 10;
+    double minRoundTimeout = 2;
+    double maxRoundTimeout = 200;
+    double timeoutBackoff = 2;
+    double timeoutDecrease = 0.5;
+
+    // In stable leader mode the coordinator keeps the coordination across rounds and instances while it is not
+    // suspected (see NodeRegistry), and tries a value without gathering proposals: its own batch in the first round of
+    // an instance, with the replicated log, and the value it tried in the previous round (leaderEstimate) otherwise.
+    boolean stableLeader = false;
+
+    // With the fast path, when at least fastQuorum proposals reaching the coordinator carry the same value, it is
+    // decided right away, without try and ACK messages. While the proposals received agree, the coordinator waits up
+    // to fastPathWait after reaching the majority before falling back to the try value. A fastQuorum of 0 means n - f,
+    // with f < n / 3.
+    boolean fastPath = false;
+    int fastQuorum = 0;
+    double fastPathWait = 0;
+    double lastBackboneBroadcast = -1;
+
+    // when aggregated, each MSS Node reports its buffer size only to the coordinator and only when it changes, and the
+    // coordinator tells everyone when all MH Nodes have sent. Otherwise every MSS Node gossips its buffer size every round.
+    boolean aggregatedCounting = false;
+
+    // With the replicated log, the MSS Nodes decide a sequence of instances instead of a single one. A node opens a new
+    // instance when it holds MH values and has less than pipelineDepth instances in flight, and proposes the MH values
+    // received since its last instance was opened as a batch. A batch that is not chosen goes back to mssBuffer.
+    boolean replicatedLog = false;
+    int pipelineDepth = 4;
+
+    // With the hierarchy, MSS Nodes are grouped in regions (see NodeRegistry). Region members send their proposals to
+    // the leader of their region, which forwards the best one to the coordinator once a majority of the region has
+    // proposed, and only region leaders take part in the rounds. Leaders relay round changes, the end of the MH values
+    // and decisions to their region. Without it, every MSS Node leads a region of its own.
+    boolean hierarchical = false;
+    MSSNode regionLeader = this;
+    Map<Integer, Integer> regionBuffersMap;
+    int regionBuffersSize = 0;
+
+    // With piggybacking, the messages sent during a step are queued per destination and sent at the end of the step,
+    // the ones to the same destination in a single EnvelopeMessage. Messages to the cell are queued in cellOutbox.
+    boolean piggybacking = false;
+    LinkedHashMap<Node, EnvelopeMessage> outbox = new LinkedHashMap<>();
+    EnvelopeMessage cellOutbox = new EnvelopeMessage();
+
     Logging logger = Logging.getLogger("mss_logfile.txt");
 
-    static {
+    {
         try {
             radius = Configuration.getIntegerParameter("UDG/rMax");
         } catch (CorruptConfigurationEntryException e) {
@@ -99,152 +180,476 @@ public class MSSNode extends Node {
             Message msg = inbox.next();
             Node sender = inbox.getSender();
 
-            if (msg instanceof ProposeValueMessage) {
-                handleProposeValueMessage(sender, (ProposeValueMessage) msg);
-            } else if (msg instanceof TryValueMessage) {
-                handleTryValueMessage(sender, (TryValueMessage) msg);
-            } else if (msg instanceof AckMessage) {
-                handleAckMessage(sender, (AckMessage) msg);
-            } else if (msg instanceof NackMessage) {
-                handleNackMessage(sender, (NackMessage) msg);
-            } else if (msg instanceof ProposedValueDefinedMessage) {
-                handleProposedValueDefinedMessage(sender, (ProposedValueDefinedMessage) msg);
-            } else if (msg instanceof NextRoundMessage) {
-                handleNextRoundMessage(sender, (NextRoundMessage) msg);
-            } else if (msg instanceof MHValueMessage) {
-                handleMHValueMessage(sender, (MHValueMessage) msg);
-            } else if (msg instanceof BufferSizeMessage) {
-                handleBufferSizeMessage(sender, (BufferSizeMessage) msg);
+            // every message from a MSS Node is a heartbeat, HeartbeatMessages are not handled otherwise
+            if (sender instanceof MSSNode) {
+                failureDetector.heartbeat((int) sender.getID(), Global.getCurrentTime());
+            }
+
+            // every message of this project is a ProtocolMessage
+            ProtocolMessage protocolMessage = (ProtocolMessage) msg;
+
+            if (protocolMessage.getKind() == MessageKind.ENVELOPE) {
+                for (Message payload : ((EnvelopeMessage) msg).getPayloads()) {
+                    handleMessage(sender, (ProtocolMessage) payload);
+                }
+            } else {
+                handleMessage(sender, protocolMessage);
+            }
+        }
+    }
+
+    // The messages are dispatched by kind, so each one costs a single switch instead of a chain of instanceof tests,
+    // and each case calls a single handler. Public so that the dispatch can be measured outside of a simulation.
+    public void handleMessage(Node sender, ProtocolMessage msg) {
+        int kind = msg.getKind();
+
+        // MH values are the most frequent messages, so they are tested first
+        if (kind == MessageKind.MH_VALUE) {
+            handleMHValueMessage(sender, (MHValueMessage) msg);
+            return;
+        }
+
+        if (kind == MessageKind.PROPOSED_VALUE_DEFINED) {
+            ConsensusInstance consensus = instanceFor(((ProposedValueDefinedMessage) msg).getInstance());
+
+            if (consensus != null) {
+                handleProposedValueDefinedMessage(consensus, sender, (ProposedValueDefinedMessage) msg);
             }
+
+            return;
+        }
+
+        // heartbeats have nothing else to handle
+        if (!MessageKind.isRoundMessage(kind)) {
+            return;
+        }
+
+        RoundMessage roundMessage = (RoundMessage) msg;
+        ConsensusInstance consensus = instanceFor(roundMessage.getInstance());
+
+        // the instance has already been decided, or the message is from an earlier round
+        if (consensus == null || !acceptRound(consensus, roundMessage)) {
+            return;
+        }
+
+        switch (kind) {
+            case MessageKind.BUFFER_SIZE:
+                handleBufferSizeMessage(consensus, sender, (BufferSizeMessage) msg);
+                break;
+            case MessageKind.PROPOSE_VALUE:
+                if (isRegionMember(sender)) {
+                    handleRegionProposeValueMessage(consensus, sender, (ProposeValueMessage) msg);
+                } else {
+                    handleProposeValueMessage(consensus, sender, (ProposeValueMessage) msg);
+                }
+                break;
+            case MessageKind.TRY_VALUE:
+                handleTryValueMessage(consensus, sender, (TryValueMessage) msg);
+                break;
+            case MessageKind.ACK:
+                handleAckMessage(consensus, sender, (AckMessage) msg);
+                break;
+            case MessageKind.NACK:
+                handleNackMessage(consensus, sender, (NackMessage) msg);
+                break;
+            case MessageKind.ALL_MH_SENT:
+                handleAllMHSentMessage(consensus, sender, (AllMHSentMessage) msg);
+                break;
+            default:
+                // NEXT_ROUND has nothing else to do, the node has moved to the round of the message when it was
+                // accepted (see acceptRound)
+                break;
+        }
+    }
+
+    private void handleProposeValueMessage(ConsensusInstance consensus, Node sender, ProposeValueMessage msg) {
+        logger.logln(LogL.infoLog, "[Coordinator " + this.getID() + "] received " + msg.getValue() + " with " + msg.getTimestamp()//
+                + " from " + sender.getID() + " for instance " + consensus.id);
+
+        if (consensus.proposersBuffer.add((int) sender.getID())) {
+            consensus.coordinatorBuffer.add(msg.getValue(), msg.getTimestamp(), msg.getProposer(), msg.getBatchSize(), msg.getEstimateRound());
         }
     }
 
-    private void handleProposeValueMessage(Node sender, ProposeValueMessage msg) {
-        System.out.println("Node " + this.getID() + " received " + msg.getValue() + " with " + msg.getTimestamp()//
-                + " from " + sender.getID());
-        coordinatorBuffer.add(msg);
+    private void handleRegionProposeValueMessage(ConsensusInstance consensus, Node sender, ProposeValueMessage msg) {
+        if (consensus.regionProposers.add((int) sender.getID())) {
+            consensus.regionBuffer.add(msg.getValue(), msg.getTimestamp(), msg.getProposer(), msg.getBatchSize(), msg.getEstimateRound());
+        }
     }
 
-    private void handleTryValueMessage(Node sender, TryValueMessage msg) {
-        Random random = new Random();
+    private void handleTryValueMessage(ConsensusInstance consensus, Node sender, TryValueMessage msg) {
+        // the coordinator was suspected before its try value arrived, and a NACK was already sent
+        if (consensus.coordinatorAnswered) {
+            return;
+        }
 
-        if (random.nextDouble() <= nackProbability) {
+        consensus.coordinatorAnswered = true;
+
+        if (consensus.proposedAt >= 0) {
+            NodeRegistry.getInstance().recordLatency(sender.getID(), Global.getCurrentTime() - consensus.proposedAt);
+        }
+
+        // the coordinator is trusted, as its message has just arrived, but a NACK can still be injected as a fault
+        if (nackProbability > 0 && Tools.getRandomNumberGenerator().nextDouble() < nackProbability) {
             logger.logln(LogL.infoLog, "[MSSNode " + this.getID() + "] sending NACK to coordinator");
-            send(new NackMessage(), coordinator);
+            sendToBackbone(NackMessage.of(consensus.round, consensus.id), consensus.coordinator);
         } else {
             logger.logln(LogL.infoLog, "[MSSNode " + this.getID() + "] sending ACK to coordinator");
-            send(new AckMessage(), coordinator);
+
+            // the value ACKed becomes the estimate of this node, as it may be decided
+            consensus.estimate.clear();
+            consensus.estimate.add(msg.getValue(), 0, msg.getProposer(), msg.getBatchSize(), msg.getRound());
+            sendToBackbone(AckMessage.of(consensus.round, consensus.id), consensus.coordinator);
         }
     }
 
-    private void handleAckMessage(Node sender, AckMessage msg) {
-        ackBuffer.add(msg);
+    private void handleAckMessage(ConsensusInstance consensus, Node sender, AckMessage msg) {
+        consensus.ackBuffer.add((int) sender.getID());
 
-        if (ackBuffer.size() >= (totalMSSNodes + 1) / 2) {
-            logger.logln(LogL.infoLog, "[Coordinator " + this.getID() + "] Message accepted! Broadcasting value defined: " + proposedValue);
-            ackBuffer.clear();
-            nackBuffer.clear();
+        if (consensus.ackBuffer.hasQuorum(quorum())) {
+            logger.logln(LogL.infoLog, "[Coordinator " + this.getID() + "] Message accepted! Broadcasting value defined: " + consensus.proposedValue);
+            consensus.ackBuffer.clear();
+            consensus.nackBuffer.clear();
 
-            ProposedValueDefinedMessage proposedValueDefinedMessage = new ProposedValueDefinedMessage(proposedValue);
-
-            broadcast(proposedValueDefinedMessage);
-            handleProposedValueDefinedMessage(this, proposedValueDefinedMessage);
+            broadcastDecision(consensus, consensus.proposedValue, consensus.proposedBatchSize, consensus.proposerId);
         }
     }
 
-    private void handleNackMessage(Node sender, NackMessage msg) {
-        nackBuffer.add(msg);
+    private void broadcastDecision(ConsensusInstance consensus, int value, int batchSize, int proposer) {
+        ProposedValueDefinedMessage proposedValueDefinedMessage = new ProposedValueDefinedMessage(value, consensus.id, batchSize, proposer);
+
+        broadcastToBackbone(proposedValueDefinedMessage);
+        handleProposedValueDefinedMessage(consensus, this, proposedValueDefinedMessage);
+    }
+
+    private void handleNackMessage(ConsensusInstance consensus, Node sender, NackMessage msg) {
+        consensus.nackBuffer.add((int) sender.getID());
 
-        if (nackBuffer.size() >= (totalMSSNodes + 1) / 2) {
+        if (consensus.nackBuffer.hasQuorum(quorum())) {
             logger.logln(LogL.infoLog, "[Coordinator " + this.getID() + "] Message not accepted! Skip round...");
-            ackBuffer.clear();
-            nackBuffer.clear();
+            consensus.ackBuffer.clear();
+            consensus.nackBuffer.clear();
 
-            broadcastNextRound();
+            broadcastNextRound(consensus);
         }
     }
 
-    private void handleProposedValueDefinedMessage(Node sender, ProposedValueDefinedMessage msg) {
-        if (!decided) {
-            logger.logln(LogL.infoLog, "[MSSNode " + this.getID() + "] consensus reached at " + ts + " round " + round);
+    private void handleProposedValueDefinedMessage(ConsensusInstance consensus, Node sender, ProposedValueDefinedMessage msg) {
+        if (consensus.decided) {
+            return;
         }
 
-        decided = true;
+        logger.logln(LogL.infoLog, "[MSSNode " + this.getID() + "] consensus reached at " + ts + " round " + consensus.round//
+                + " instance " + consensus.id);
+
+        consensus.decided = true;
+        instances.remove(consensus.id);
+        decidedInstances++;
+        NodeRegistry.getInstance().recordDecision(consensus.id, msg.getValue(), msg.getBatchSize(), consensus.round);
+        roundTimeout = Math.max(roundTimeout * timeoutDecrease, minRoundTimeout);
         proposedValue = msg.getValue();
-        propose = false;
-        coordinatorBuffer.clear();
+
+        if (hierarchical && isRegionLeader()) {
+            broadcastToRegion(msg);
+        }
+
+        if (replicatedLog) {
+            // the batch of another MSS Node was chosen, so the MH values of this one are proposed again later
+            if (msg.getProposer() != this.getID()) {
+                mssBuffer.addAll(consensus.batch);
+            }
+
+            return;
+        }
+
+        decided = true;
+        NodeRegistry.getInstance().markDecided(this);
+
+        // MH Nodes in range are notified once now, the ones that join the cell later are notified in neighborhoodChange
+        decision = msg;
+        broadcastToCell(decision);
+        informedMHs.or(cellMembers);
     }
 
-    private void handleNextRoundMessage(Node sender, NextRoundMessage msg) {
-        initialState();
-        updateRound();
-        updateCoordinator();
+    // Messages from earlier rounds are dropped. When a message from a later round arrives, this node is lagging
+    // behind and jumps directly to that round.
+    private boolean acceptRound(ConsensusInstance consensus, RoundMessage msg) {
+        if (msg.getRound() < consensus.round) {
+            return false;
+        }
+
+        if (msg.getRound() > consensus.round) {
+            moveToRound(consensus, msg.getRound());
+        }
+
+        return true;
+    }
+
+    // Returns the open instance with the given id, or null if it has already been decided. A message for an instance
+    // this node has not opened yet means other nodes have, so the node joins it and every instance before it.
+    private ConsensusInstance instanceFor(int id) {
+        while (nextInstance <= id) {
+            openInstance();
+        }
+
+        return instances.get(id);
+    }
+
+    private ConsensusInstance openInstance() {
+        ConsensusInstance consensus = new ConsensusInstance(nextInstance++);
+
+        // the coordinator rotates with the instance too, so instances in flight do not share the same coordinator,
+        // unless a stable leader keeps them all
+        consensus.coordinatorId = rotatingCoordinator(consensus);
+        consensus.coordinator = findCoordinator(consensus.coordinatorId);
+        coordinatorId = consensus.coordinatorId;
+
+        if (replicatedLog) {
+            consensus.batch.addAll(mssBuffer);
+            consensus.allMHSent = true;
+            mssBuffer.clear();
+
+            // the region leader tells its region about the instance, so that members without MH values join it too
+            consensus.relayedRound = -1;
+        }
+
+        instances.put(consensus.id, consensus);
+        return consensus;
+    }
+
+    public void handleRoundTimeout(int instance, int timedOutRound) {
+        ConsensusInstance consensus = instances.get(instance);
+
+        if (consensus == null || timedOutRound != consensus.round) {
+            return;
+        }
+
+        logger.logln(LogL.infoLog, "[MSSNode " + this.getID() + "] round " + consensus.round + " of instance " + instance//
+                + " timed out after " + roundTimeout);
+        NodeRegistry.getInstance().recordSuspicion(consensus.coordinatorId);
+        moveToRound(consensus, consensus.round + 1);
+    }
+
+    private void moveToRound(ConsensusInstance consensus, int newRound) {
+        increaseRoundTimeout();
+        initialState(consensus);
+        updateRound(consensus, newRound);
+        updateCoordinator(consensus);
     }
 
     private void handleMHValueMessage(Node sender, MHValueMessage msg) {
-        mssBuffer.add(msg);
-        mssBuffersMap.put((int) this.getID(), mssBuffer.size());
+        mssBuffer.add(msg.getValue(), msg.getTimestamp());
+
+        // with the hierarchy, the buffer of a region member is counted by its region leader
+        if (replicatedLog) {
+            return;
+        } else if (!hierarchical) {
+            updateBufferSize((int) this.getID(), mssBuffer.size());
+        } else if (isRegionLeader()) {
+            updateRegionBufferSize((int) this.getID(), mssBuffer.size());
+        }
     }
 
-    private void handleBufferSizeMessage(Node sender, BufferSizeMessage msg) {
-        mssBuffersMap.put(msg.getId(), msg.getBufferSize());
+    private void handleBufferSizeMessage(ConsensusInstance consensus, Node sender, BufferSizeMessage msg) {
+        if (isRegionMember(sender)) {
+            updateRegionBufferSize(msg.getId(), msg.getBufferSize());
+        } else {
+            updateBufferSize(msg.getId(), msg.getBufferSize());
+        }
     }
 
-    private void broadcastNextRound() {
-        NextRoundMessage nextRoundMessage = new NextRoundMessage();
+    private void handleAllMHSentMessage(ConsensusInstance consensus, Node sender, AllMHSentMessage msg) {
+        consensus.allMHSent = true;
 
-        handleNextRoundMessage(this, nextRoundMessage);
-        broadcast(nextRoundMessage);
+        if (hierarchical && isRegionLeader()) {
+            broadcastToRegion(msg);
+        }
+    }
+
+    // keeps the sum of all buffer sizes up to date without summing the whole map again
+    private void updateBufferSize(int id, int bufferSize) {
+        Integer previousSize = mssBuffersMap.put(id, bufferSize);
+        totalBuffersSize += bufferSize - (previousSize == null ? 0 : previousSize);
     }
 
-    private void proposeValue() {
-        Map<String, Integer> proposedMessage = getMostRecentMHMessage();
-        proposedValue = proposedMessage.get("value");
-        ProposeValueMessage proposeMessage = new ProposeValueMessage(proposedValue, proposedMessage.get("timestamp"));
-        logger.logln(LogL.infoLog, "[MSSNode " + this.getID() + "] Send proposed value " + proposedValue + " to coordinator " + coordinator.getID());
-        propose = true;
+    // same as updateBufferSize, for the buffers of the region of this node, whose sum it reports to the coordinator
+    private void updateRegionBufferSize(int id, int bufferSize) {
+        Integer previousSize = regionBuffersMap.put(id, bufferSize);
+        regionBuffersSize += bufferSize - (previousSize == null ? 0 : previousSize);
+    }
+
+    private void broadcastNextRound(ConsensusInstance consensus) {
+        NextRoundMessage nextRoundMessage = NextRoundMessage.of(consensus.round + 1, consensus.id);
+
+        moveToRound(consensus, nextRoundMessage.getRound());
+        broadcastToBackbone(nextRoundMessage);
+    }
 
-        send(proposeMessage, coordinator);
+    private void proposeValue(ConsensusInstance consensus) {
+        BestProposal batch = replicatedLog ? consensus.batch : mssBuffer;
+        BestProposal estimate = consensus.estimate;
+        ProposeValueMessage proposeMessage;
 
-        if (this.getID() == coordinatorId) {
-            handleProposeValueMessage(this, proposeMessage);
+        // a node that ACKed a value proposes it again. Otherwise, an empty batch has a timestamp lower than any MH value,
+        // so it is only chosen when no proposal has values
+        if (!estimate.isEmpty()) {
+            proposeMessage = new ProposeValueMessage(estimate.getValue(), estimate.getTimestamp(), estimate.getBatchSize(),//
+                    estimate.getProposer(), estimate.getEstimateRound(), consensus.round, consensus.id);
+        } else {
+            proposeMessage = new ProposeValueMessage(batch.getValue(), batch.isEmpty() ? -1 : batch.getTimestamp(), batch.size(),//
+                    (int) this.getID(), -1, consensus.round, consensus.id);
+        }
+
+        consensus.proposedValue = proposeMessage.getValue();
+        consensus.propose = true;
+
+        if (!isRegionLeader()) {
+            logger.logln(LogL.infoLog, "[MSSNode " + this.getID() + "] Send proposed value " + consensus.proposedValue + " to region leader "//
+                    + regionLeader.getID() + " for instance " + consensus.id);
+            sendToBackbone(proposeMessage, regionLeader);
+        } else if (hierarchical) {
+            handleRegionProposeValueMessage(consensus, this, proposeMessage);
+        } else {
+            sendToCoordinator(consensus, proposeMessage);
+        }
+    }
+
+    // the region leader forwards the best proposal of its region, keeping the MSS Node that proposed it
+    private void forwardRegionProposal(ConsensusInstance consensus) {
+        BestProposal proposal = consensus.regionBuffer;
+
+        consensus.regionProposed = true;
+        sendToCoordinator(consensus, new ProposeValueMessage(proposal.getValue(), proposal.getTimestamp(), proposal.getBatchSize(),//
+                proposal.getProposer(), proposal.getEstimateRound(), consensus.round, consensus.id));
+    }
+
+    private void sendToCoordinator(ConsensusInstance consensus, ProposeValueMessage proposeMessage) {
+        logger.logln(LogL.infoLog, "[MSSNode " + this.getID() + "] Send proposed value " + proposeMessage.getValue() + " to coordinator "//
+                + consensus.coordinatorId + " for instance " + consensus.id);
+
+        // the coordinator starts sending heartbeats when it knows all MH Nodes have sent, so only now it is monitored
+        failureDetector.monitor(consensus.coordinatorId, Global.getCurrentTime());
+        consensus.proposedAt = Global.getCurrentTime();
+        sendToBackbone(proposeMessage, consensus.coordinator);
+
+        if (this.getID() == consensus.coordinatorId) {
+            handleProposeValueMessage(consensus, this, proposeMessage);
         }
     }
 
     @Override
     public void preStep() {
-        totalMSSNodes = discoverTotalMSSNodes();
-        totalMHNodes = discoverTotalMHNodes();
-        coordinator = (MSSNode) findCoordinator();
+        totalMSSNodes = NodeRegistry.getInstance().getTotalMSSNodes();
+        totalMHNodes = NodeRegistry.getInstance().getTotalMHNodes();
 
-        if (!propose && allMHSent && !decided) {
-            if (!mssBuffer.isEmpty()) {
-                proposeValue();
-            }
+        if (hierarchical) {
+            regionLeader = NodeRegistry.getInstance().getRegionLeader(this);
         }
 
-        if (decided) {
-            broadcast(new ProposedValueDefinedMessage(proposedValue));
+        // without the replicated log there is a single instance, open from the start; with it, MH values received
+        // while the pipeline is full wait in mssBuffer for the next instance
+        if (!replicatedLog ? nextInstance == 0 : !mssBuffer.isEmpty() && instances.size() < pipelineDepth) {
+            openInstance();
+        }
+
+        for (ConsensusInstance consensus : instances.values()) {
+            consensus.coordinator = findCoordinator(consensus.coordinatorId);
+
+            // with the replicated log an empty batch is proposed too, as every proposal counts for the quorum
+            if (!consensus.propose && consensus.allMHSent && (replicatedLog || !mssBuffer.isEmpty())) {
+                proposeValue(consensus);
+            }
         }
     }
 
     @Override
     public void init() {
-        coordinatorBuffer = new ArrayList<ProposeValueMessage>();
-        ackBuffer = new ArrayList<AckMessage>();
-        nackBuffer = new ArrayList<NackMessage>();
-        mssBuffer = new ArrayList<MHValueMessage>();
+        mssBuffer = new BestProposal();
         mssBuffersMap = new HashMap<>();
-        coordinator = (MSSNode) findCoordinator();
+        regionBuffersMap = new HashMap<>();
+        hierarchical = NodeRegistry.getInstance().isHierarchical();
 
         try {
-            nackProbability = Configuration.getDoubleParameter("NackProbability");
+            failureDetector = new FailureDetector();
+
+            if (Configuration.hasParameter("NackProbability")) {
+                nackProbability = Configuration.getDoubleParameter("NackProbability");
+            }
+
+            if (Configuration.hasParameter("Coordinator/stableLeader")) {
+                stableLeader = Configuration.getBooleanParameter("Coordinator/stableLeader");
+            }
+
+            if (Configuration.hasParameter("FastPath/enabled")) {
+                fastPath = Configuration.getBooleanParameter("FastPath/enabled");
+                fastQuorum = Configuration.getIntegerParameter("FastPath/quorum");
+                fastPathWait = Configuration.getDoubleParameter("FastPath/wait");
+            }
+
+            if (Configuration.hasParameter("RoundTimeout/initial")) {
+                roundTimeout = Configuration.getDoubleParameter("RoundTimeout/initial");
+                minRoundTimeout = Configuration.getDoubleParameter("RoundTimeout/min");
+                maxRoundTimeout = Configuration.getDoubleParameter("RoundTimeout/max");
+                timeoutBackoff = Configuration.getDoubleParameter("RoundTimeout/backoff");
+                timeoutDecrease = Configuration.getDoubleParameter("RoundTimeout/decrease");
+            }
+
+            if (Configuration.hasParameter("ProposalCounting/mode")) {
+                aggregatedCounting = Configuration.getStringParameter("ProposalCounting/mode").equals("aggregated");
+            }
+
+            // with the hierarchy, the buffer sizes are always aggregated through the region leaders
+            aggregatedCounting |= hierarchical;
+
+            if (Configuration.hasParameter("Piggybacking/enabled")) {
+                piggybacking = Configuration.getBooleanParameter("Piggybacking/enabled");
+            }
+
+            if (Configuration.hasParameter("ReplicatedLog/enabled")) {
+                replicatedLog = Configuration.getBooleanParameter("ReplicatedLog/enabled");
+                pipelineDepth = Configuration.getIntegerParameter("ReplicatedLog/pipelineDepth");
+            }
         } catch (CorruptConfigurationEntryException e) {
             e.printStackTrace();
         }
     }
     @Override
     public void neighborhoodChange() {
+        BitSet members = previousCellMembers;
+        previousCellMembers = cellMembers;
+        cellMembers = members;
+        cellMembers.clear();
+
+        ReusableListIterator<Edge> connections = this.getOutgoingConnections().iterator();
+
+        while (connections.hasNext()) {
+            Node neighbour = connections.next().getEndNode();
+
+            if (neighbour instanceof MHNode) {
+                cellMembers.set((int) neighbour.getID());
+
+                if (!previousCellMembers.get((int) neighbour.getID())) {
+                    handleMHJoined((MHNode) neighbour);
+                }
+            }
+        }
+    }
+
+    private void handleMHJoined(MHNode mhNode) {
+        // with the replicated log MH Nodes keep proposing on their own, and are not told about rounds and decisions
+        if (replicatedLog) {
+            return;
+        }
+
+        // a MH Node that was out of range may have missed the notification of the current round
+        if (round != 0) {
+            transmit(NotifyRoundMessage.of(round), mhNode);
+        }
+
+        if (decided && !informedMHs.get((int) mhNode.getID())) {
+            transmit(decision, mhNode);
+            informedMHs.set((int) mhNode.getID());
+        }
     }
 
     public void start() {
@@ -261,7 +666,8 @@ public class MSSNode extends Node {
             nodeColor = Color.MAGENTA;
         }
 
-        super.drawNodeAsSquareWithText(g, pt, highlight, "ID: " + this.getID() + "|R: " + round + "|P: " + proposedValue, 50, nodeColor);
+        String state = replicatedLog ? "|I: " + decidedInstances : "|R: " + round;
+        super.drawNodeAsSquareWithText(g, pt, highlight, "ID: " + this.getID() + state + "|P: " + proposedValue, 50, nodeColor);
 
         g.setColor(Color.LIGHT_GRAY);
         pt.translateToGUIPosition(this.getPosition());
@@ -272,135 +678,364 @@ public class MSSNode extends Node {
 
     @Override
     public void postStep() {
+        boolean coordinating = false;
+
+        // deciding removes the instance, so the open instances are copied first
+        stepInstances.clear();
+        stepInstances.addAll(instances.values());
+
+        for (ConsensusInstance consensus : stepInstances) {
+            stepInstance(consensus);
+            coordinating |= this.getID() == consensus.coordinatorId && consensus.allMHSent && !consensus.decided;
+        }
+
+        // the coordinator sends heartbeats during the consensus, when it has not broadcast anything else recently
+        if (coordinating && Global.getCurrentTime() - lastBackboneBroadcast >= failureDetector.getHeartbeatInterval()) {
+            broadcastToBackbone(HeartbeatMessage.getInstance());
+        }
+
+        // Broadcast notify round message when round changes. When any MH node receive this message it update round there and know if can propose another value.
+        // MH Nodes that join the cell later are notified in neighborhoodChange.
+        if (!replicatedLog && round != notifiedRound) {
+            broadcastToCell(NotifyRoundMessage.of(round));
+            notifiedRound = round;
+        }
+
+        flushOutbox();
+        ts++;
+    }
+
+    private void stepInstance(ConsensusInstance consensus) {
+        boolean isCoordinator = this.getID() == consensus.coordinatorId;
+
+        // with the replicated log the coordinator announces the instance, so that nodes with no MH values join it too
+        if (replicatedLog && isCoordinator && !consensus.announced) {
+            consensus.announced = true;
+            broadcastToBackbone(NextRoundMessage.of(consensus.round, consensus.id));
+        }
+
+        if (hierarchical && isRegionLeader()) {
+            stepRegion(consensus);
+        }
+
+        if (stableLeader && isCoordinator && !consensus.coordinatorAlreadyProposedValue) {
+            tryLeaderEstimate(consensus);
+        }
+
+        if (consensus.proposersBuffer.hasQuorum(quorum()) && !consensus.coordinatorAlreadyProposedValue && consensus.majorityReachedAt < 0) {
+            consensus.majorityReachedAt = Global.getCurrentTime();
+        }
+
+        if (fastPath && consensus.proposersBuffer.hasQuorum(fastQuorum()) && consensus.coordinatorBuffer.isUnanimous()//
+                && !consensus.coordinatorAlreadyProposedValue) {
+            BestProposal proposal = consensus.coordinatorBuffer;
+
+            logger.logln(LogL.infoLog, "[Coordinator " + this.getID() + "] All proposals agree! Broadcasting value defined: " + proposal.getValue());
+            consensus.coordinatorAlreadyProposedValue = true;
+            consensus.proposedValue = proposal.getValue();
+            broadcastDecision(consensus, proposal.getValue(), proposal.getBatchSize(), proposal.getProposer());
+            return;
+        }
+
         // broadcast defined value if coordinator buffer contains at least (n + 1) / 2 values
-        if (coordinatorBuffer.size() >= (totalMSSNodes + 1) / 2 && !coordinatorAlreadyProposedValue) {
-            int value = getMostRecentProposedValue();
-            TryValueMessage tryValueMessage = new TryValueMessage(value);
+        if (consensus.proposersBuffer.hasQuorum(quorum()) && !consensus.coordinatorAlreadyProposedValue && !isWaitingFastQuorum(consensus)) {
+            tryValue(consensus, consensus.coordinatorBuffer);
+        }
 
-            coordinatorAlreadyProposedValue = true;
-            proposedValue = value;
-            coordinatorBuffer.clear();
+        if (!replicatedLog) {
+            if (!consensus.allMHSent) {
+                updateMSSNeighboursBufferSize(consensus);
+            }
 
-            logger.logln(LogL.infoLog, "[Coordinator " + this.getID() +"] Proposing try value " + tryValueMessage.getValue());
-            broadcast(tryValueMessage);
+            checkAllMHSent(consensus);
         }
 
-        if (!allMHSent) {
-            updateMSSNeighboursBufferSize();
+        // region members do not take part in the rounds, they follow the rounds relayed by their leader
+        if (isRegionLeader()) {
+            checkCoordinatorSuspected(consensus);
+            startRoundTimer(consensus);
         }
+    }
 
-        checkAllMHSent();
+    private void stepRegion(ConsensusInstance consensus) {
+        if (consensus.relayedRound != consensus.round) {
+            consensus.relayedRound = consensus.round;
+            broadcastToRegion(NextRoundMessage.of(consensus.round, consensus.id));
+        }
 
-        // Always broadcast notify round message. When any MH node receive this message it update round there and know if can propose another value
-        broadcast(new NotifyRoundMessage(round));
+        if (!consensus.regionProposed && consensus.regionProposers.hasQuorum(regionQuorum())) {
+            forwardRegionProposal(consensus);
+        }
+    }
 
-        ts++;
+    // while all proposals received agree, there is still a chance of reaching the fast quorum
+    private boolean isWaitingFastQuorum(ConsensusInstance consensus) {
+        return fastPath && consensus.coordinatorBuffer.isUnanimous() && Global.getCurrentTime() - consensus.majorityReachedAt < fastPathWait;
     }
 
-    private void updateMSSNeighboursBufferSize() {
-        broadcast(new BufferSizeMessage(mssBuffer.size(), (int) this.getID()));
+    // A stable leader skips the proposals when no other coordinator can have locked a value since it last tried one: in
+    // the first round of an instance, where it tries its own batch (with the replicated log, where any batch will do),
+    // or in the round after the one where it tried its estimate.
+    private void tryLeaderEstimate(ConsensusInstance consensus) {
+        if (replicatedLog && consensus.round == 0 && !consensus.batch.isEmpty()) {
+            BestProposal batch = new BestProposal();
+            batch.add(consensus.batch.getValue(), consensus.batch.getTimestamp(), (int) this.getID(), consensus.batch.size());
+            tryValue(consensus, batch);
+        } else if (!consensus.leaderEstimate.isEmpty() && consensus.leaderEstimateRound == consensus.round - 1) {
+            tryValue(consensus, consensus.leaderEstimate);
+        }
     }
 
-    @Override
-    public String toString() {
-        return "";
+    private void tryValue(ConsensusInstance consensus, BestProposal proposal) {
+        TryValueMessage tryValueMessage = new TryValueMessage(proposal.getValue(), proposal.getBatchSize(), proposal.getProposer(),//
+                consensus.round, consensus.id);
+
+        // a stable leader keeps the value it tries, to try it again in the next round if it coordinates it too
+        if (stableLeader) {
+            if (proposal != consensus.leaderEstimate) {
+                consensus.leaderEstimate.clear();
+                consensus.leaderEstimate.addAll(proposal);
+            }
+
+            consensus.leaderEstimateRound = consensus.round;
+        }
+
+        consensus.coordinatorAlreadyProposedValue = true;
+        consensus.proposedValue = proposal.getValue();
+        consensus.proposedBatchSize = proposal.getBatchSize();
+        consensus.proposerId = proposal.getProposer();
+        consensus.coordinatorBuffer.clear();
+        consensus.proposersBuffer.clear();
+
+        logger.logln(LogL.infoLog, "[Coordinator " + this.getID() +"] Proposing try value " + tryValueMessage.getValue());
+        broadcastToBackbone(tryValueMessage);
     }
 
-    @Override
-    public void checkRequirements() throws WrongConfigurationException {
+    // The round timer starts once this node holds MH values (or those of its region) or all MH Nodes have sent, so a
+    // coordinator that disappears before finding out that all MH Nodes have sent does not stall the rounds.
+    private void startRoundTimer(ConsensusInstance consensus) {
+        if ((consensus.allMHSent || bufferSize() > 0) && !consensus.decided && consensus.timedRound != consensus.round) {
+            consensus.timedRound = consensus.round;
+            new RoundTimer(this, consensus.id, consensus.round).startRelative(roundTimeout, this);
+        }
+    }
+
+    private void increaseRoundTimeout() {
+        roundTimeout = Math.min(roundTimeout * timeoutBackoff, maxRoundTimeout);
     }
 
-    Node findCoordinator() {
-        Node coordinator = null;
-        Iterator<Node> nodes = SinalgoRuntime.getNodes().iterator();
+    // while waiting for the try value, a suspected coordinator is answered with a NACK
+    private void checkCoordinatorSuspected(ConsensusInstance consensus) {
+        if (consensus.propose && !consensus.coordinatorAnswered && !consensus.decided && isSuspected(consensus.coordinatorId)) {
+            logger.logln(LogL.infoLog, "[MSSNode " + this.getID() + "] suspects coordinator " + consensus.coordinatorId + ", sending NACK");
+            consensus.coordinatorAnswered = true;
+            NodeRegistry.getInstance().recordSuspicion(consensus.coordinatorId);
+            sendToBackbone(NackMessage.of(consensus.round, consensus.id), consensus.coordinator);
+        }
+    }
 
-        while (nodes.hasNext()) {
-            Node currentNode = nodes.next();
+    // Region members report their buffer size to their leader, and region leaders report the sum of the buffer sizes
+    // of their region to the coordinator. A coordinator keeps the size it reports to itself. Nothing is reported while
+    // the coordinator is unknown (removed), and a new coordinator gets the whole buffer size again.
+    private void updateMSSNeighboursBufferSize(ConsensusInstance consensus) {
+        int bufferSize = bufferSize();
 
-            if (currentNode instanceof MSSNode) {
-                if (currentNode.getID() == coordinatorId) {
-                    coordinator = currentNode;
-                }
+        if (!aggregatedCounting) {
+            broadcastToBackbone(new BufferSizeMessage(bufferSize, (int) this.getID(), consensus.round));
+            return;
+        }
+
+        MSSNode target = isRegionLeader() ? consensus.coordinator : regionLeader;
+
+        if (target != null && bufferSize != (target == reportedTo ? reportedBufferSize : 0)) {
+            reportedBufferSize = bufferSize;
+            reportedTo = target;
+
+            if (target == this) {
+                updateBufferSize((int) this.getID(), bufferSize);
             } else {
-                continue;
+                sendToBackbone(new BufferSizeMessage(bufferSize, (int) this.getID(), consensus.round), target);
             }
         }
+    }
 
-        return coordinator;
+    // MH values this node reports: its own, or the ones of its region when it leads one
+    private int bufferSize() {
+        return hierarchical && isRegionLeader() ? regionBuffersSize : mssBuffer.size();
+    }
+
+    // MSS Nodes are connected to each other through a fixed backbone that is not modelled with edges, so messages
+    // between them are sent directly. Messages to itself are skipped, as the node handles them locally.
+    private void sendToBackbone(Message msg, MSSNode target) {
+        if (target != null && target != this) {
+            transmit(msg, target);
+        }
     }
 
-    private Map<String, Integer> getMostRecentMHMessage() {
-        mssBuffer.sort(new MHValueComparator());
-        Map<String, Integer> mostRecentMessage = new HashMap<>();
+    // with the hierarchy, only region leaders take part in the rounds, so only they are reached
+    private void broadcastToBackbone(Message msg) {
+        lastBackboneBroadcast = Global.getCurrentTime();
 
-        mostRecentMessage.put("value", mssBuffer.get(0).getValue());
-        mostRecentMessage.put("timestamp", mssBuffer.get(0).getValue());
-        return mostRecentMessage;
+        for (MSSNode mssNode : hierarchical ? NodeRegistry.getInstance().getRegionLeaders() : NodeRegistry.getInstance().getMSSNodes()) {
+            if (mssNode != this) {
+                transmit(msg, mssNode);
+            }
+        }
     }
 
-    private int getMostRecentProposedValue() {
-        coordinatorBuffer.sort(new ProposeValueComparator());
+    private void broadcastToRegion(Message msg) {
+        for (MSSNode mssNode : NodeRegistry.getInstance().getRegionMembers(this)) {
+            if (mssNode != this) {
+                transmit(msg, mssNode);
+            }
+        }
+    }
 
-        return coordinatorBuffer.get(0).getValue();
+    // MSS Nodes only have edges to the MH Nodes in range, so a broadcast reaches only the MH Nodes in its cell
+    private void broadcastToCell(Message msg) {
+        if (piggybacking) {
+            cellOutbox.add(msg);
+        } else {
+            broadcast(msg);
+        }
     }
 
-    private void initialState() {
-        propose = false;
-        proposedValue = 0;
-        allMHSent = false;
-        coordinatorAlreadyProposedValue = false;
-        coordinatorBuffer.clear();
-        ackBuffer.clear();
-        nackBuffer.clear();
-        mssBuffer.clear();
-        mssBuffersMap.clear();
+    // MSS Nodes are reached through the backbone, MH Nodes through their edge
+    private void transmit(Message msg, Node target) {
+        if (piggybacking) {
+            outbox.computeIfAbsent(target, node -> new EnvelopeMessage()).add(msg);
+        } else if (target instanceof MSSNode) {
+            sendDirect(msg, target);
+        } else {
+            send(msg, target);
+        }
     }
 
-    private void updateRound() {
-        round++;
-        logger.logln(LogL.infoLog, "Skip to round: " + round);
+    private void flushOutbox() {
+        for (Map.Entry<Node, EnvelopeMessage> entry : outbox.entrySet()) {
+            if (entry.getKey() instanceof MSSNode) {
+                sendDirect(entry.getValue().unwrap(), entry.getKey());
+            } else {
+                send(entry.getValue().unwrap(), entry.getKey());
+            }
+        }
+
+        outbox.clear();
+
+        if (!cellOutbox.isEmpty()) {
+            broadcast(cellOutbox.unwrap());
+            cellOutbox = new EnvelopeMessage();
+        }
     }
 
-    private void updateCoordinator() {
-        coordinatorId = (round % totalMSSNodes + 1);
-        coordinator = (MSSNode) findCoordinator();
-        logger.logln(LogL.infoLog, "New coordinator with ID: " + coordinatorId);
+    @Override
+    public String toString() {
+        return "";
     }
 
-    private int discoverTotalMSSNodes() {
-        int totalNodes = 0;
-        Iterator<Node> nodes = SinalgoRuntime.getNodes().iterator();
+    @Override
+    public void checkRequirements() throws WrongConfigurationException {
+    }
 
-        while (nodes.hasNext()) {
-            Node currentNode = nodes.next();
+    MSSNode findCoordinator(int coordinatorId) {
+        return NodeRegistry.getInstance().getMSSNode(coordinatorId);
+    }
 
-            if (currentNode instanceof MSSNode) { totalNodes++; }
+    private void initialState(ConsensusInstance consensus) {
+        consensus.resetRound();
+
+        // without the replicated log the MH Nodes propose again in every round, so the values are gathered again
+        if (!replicatedLog) {
+            consensus.allMHSent = false;
+            mssBuffer.clear();
+            mssBuffersMap.clear();
+            totalBuffersSize = 0;
+            regionBuffersMap.clear();
+            regionBuffersSize = 0;
+            reportedBufferSize = 0;
+            reportedTo = null;
         }
+    }
 
-        return totalNodes;
+    // MSS Nodes taking part in the rounds: all of them, or only the region leaders with the hierarchy
+    private int participants() {
+        return hierarchical ? NodeRegistry.getInstance().getRegionLeaders().size() : totalMSSNodes;
     }
 
-    private int discoverTotalMHNodes() {
-        int totalNodes = 0;
-        Iterator<Node> nodes = SinalgoRuntime.getNodes().iterator();
+    // a majority of the MSS Nodes taking part in the rounds
+    private int quorum() {
+        return (participants() + 1) / 2;
+    }
+
+    private int fastQuorum() {
+        return fastQuorum > 0 ? fastQuorum : participants() - (participants() - 1) / 3;
+    }
 
-        while (nodes.hasNext()) {
-            Node currentNode = nodes.next();
+    // a majority of the region of this node, leader included
+    private int regionQuorum() {
+        return (NodeRegistry.getInstance().getRegionMembers(this).size() + 1) / 2;
+    }
 
-            if (currentNode instanceof MHNode) { totalNodes++; }
+    private boolean isRegionLeader() {
+        return regionLeader == this;
+    }
+
+    // whether sender is another MSS Node of the region this node leads
+    private boolean isRegionMember(Node sender) {
+        return hierarchical && sender != this && sender instanceof MSSNode && NodeRegistry.getInstance().getRegionLeader((MSSNode) sender) == this;
+    }
+
+    // the MSS Nodes take turns in the order of the ranking of the coordinator policy, which holds only the region
+    // leaders with the hierarchy, and every MSS Node gets the same coordinator for a round (see NodeRegistry)
+    private int rotatingCoordinator(ConsensusInstance consensus) {
+        return (int) NodeRegistry.getInstance().getCoordinator(consensus.id, consensus.round);
+    }
+
+    public int getCellSize() {
+        return cellMembers.cardinality();
+    }
+
+    private void updateRound(ConsensusInstance consensus, int newRound) {
+        consensus.round = newRound;
+
+        if (!replicatedLog) {
+            round = newRound;
         }
 
-        return totalNodes;
+        logger.logln(LogL.infoLog, "Skip to round: " + newRound + " of instance " + consensus.id);
+    }
+
+    private void updateCoordinator(ConsensusInstance consensus) {
+        consensus.coordinatorId = rotatingCoordinator(consensus);
+        consensus.coordinator = findCoordinator(consensus.coordinatorId);
+        coordinatorId = consensus.coordinatorId;
+        logger.logln(LogL.infoLog, "Coordinator of round " + consensus.round + " with ID: " + consensus.coordinatorId);
+    }
+
+    // a node never suspects itself
+    private boolean isSuspected(int id) {
+        return this.getID() != id && failureDetector.suspects(id, Global.getCurrentTime());
     }
 
-    private void checkAllMHSent() {
-        int totalBuffersSize = 0;
-        for (int size : mssBuffersMap.values()) {
-            totalBuffersSize += size;
+    private void checkAllMHSent(ConsensusInstance consensus) {
+        // when aggregated only the coordinator knows the size of all buffers
+        if (consensus.allMHSent || aggregatedCounting && this.getID() != consensus.coordinatorId) {
+            return;
         }
 
         if (totalBuffersSize == totalMHNodes) {
-            allMHSent = true;
+            consensus.allMHSent = true;
+
+            if (aggregatedCounting) {
+                logger.logln(LogL.infoLog, "[Coordinator " + this.getID() + "] All MH Nodes have sent their values");
+                broadcastToBackbone(AllMHSentMessage.of(consensus.round));
+
+                // the backbone reaches only the other region leaders, which relay it to their regions (see
+                // handleAllMHSentMessage), so the coordinator relays it to its own region
+                if (hierarchical) {
+                    broadcastToRegion(AllMHSentMessage.of(consensus.round));
+                }
+            }
         }
     }
 }
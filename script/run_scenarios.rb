@@ -0,0 +1,110 @@
+# frozen_string_literal: true
+
+# Runs the reference scenarios of scenarios.csv headless and prints their cost. Each scenario runs with the budgets
+# recorded for it, and the run fails if the simulation decides nothing or exceeds one of them (see the Budget entry of
+# Config.xml). A scenario without every budget set is an error. The overwrite column holds the other Config.xml entries
+# of a scenario, as space separated key=value pairs.
+#
+#   ruby run_scenarios.rb <sinalgo dir> [--record] [scenario ...]
+#
+# With --record, the scenarios run without budgets and their budgets are recorded again from the measured cost, with
+# a margin. Sinalgo runs through its Gradle build, unless SINALGO_CMD gives another command (e.g. 'java -cp ... sinalgo.Run').
+
+require 'csv'
+require 'open3'
+
+SCENARIOS_FILE = File.join(__dir__, 'scenarios.csv')
+BUDGETS = %w[messagesPerDecision roundsToDecision peakHeap wallTime].freeze
+MESSAGE_KINDS = %w[ProposeValue TryValue Ack Nack NextRound BufferSize AllMHSent ProposedValueDefined MHValue
+                   NotifyRound Heartbeat Envelope].freeze
+MARGIN = 1.25
+
+def sinalgo_args(scenario, record)
+  args = ['-project', 'chandra_toueg', '-batch',
+          '-gen', scenario['mss'], 'chandra_toueg:MSSNode', 'Grid2D',
+          '-gen', scenario['mh'], 'chandra_toueg:MHNode', 'Random', 'RandomWayPoint',
+          '-overwrite', "NackProbability=#{scenario['nackProbability']}", "Budget/enabled=#{!record}"]
+
+  args.concat(scenario['overwrite'].to_s.split(' '))
+  BUDGETS.each { |budget| args << "Budget/#{budget}=#{scenario[budget]}" } unless record
+  args
+end
+
+def missing_budgets(scenario)
+  BUDGETS.reject { |budget| scenario[budget].to_f.positive? }
+end
+
+def run_sinalgo(sinalgo_dir, args)
+  command = if ENV['SINALGO_CMD']
+              ENV['SINALGO_CMD'].split(' ') + args
+            else
+              ['./gradlew', 'run', '-q', "--args=#{args.join(' ')}"]
+            end
+
+  Open3.capture2e(*command, chdir: sinalgo_dir)
+end
+
+# the simulation prints its statistics on a single line, as key=value pairs
+def parse_statistics(output)
+  line = output.lines.reverse.find { |l| l.start_with?('[Statistics]') }
+  return nil unless line
+
+  line.split(' ').drop(1).map { |pair| pair.split('=', 2) }.to_h
+end
+
+def record_budgets(scenario, statistics)
+  scenario['messagesPerDecision'] = (statistics['messagesPerDecision'].to_f * MARGIN).ceil
+  scenario['roundsToDecision'] = (statistics['roundsToDecision'].to_i * MARGIN).ceil
+  scenario['peakHeap'] = (statistics['peakHeapMB'].to_f * MARGIN).ceil
+  scenario['wallTime'] = (statistics['wallTime'].to_f * MARGIN).ceil
+end
+
+sinalgo_dir = ARGV[0]
+abort 'usage: ruby run_scenarios.rb <sinalgo dir> [--record] [scenario ...]' unless sinalgo_dir
+
+record = ARGV.include?('--record')
+names = ARGV.drop(1) - ['--record']
+
+table = CSV.read(SCENARIOS_FILE, headers: true)
+selected = table.select { |scenario| names.empty? || names.include?(scenario['name']) }
+failed = false
+
+unless record
+  selected.each do |scenario|
+    missing = missing_budgets(scenario)
+    abort "#{scenario['name']}: no budget for #{missing.join(', ')}, record them with --record" unless missing.empty?
+  end
+end
+
+puts format('%-16s %10s %8s %12s %12s %10s  %s', 'scenario', 'wall (s)', 'rounds', 'msgs/dec', 'transmitted',
+            'heap (MB)', 'result')
+
+selected.each do |scenario|
+  output, status = run_sinalgo(sinalgo_dir, sinalgo_args(scenario, record))
+  statistics = parse_statistics(output)
+
+  if statistics.nil?
+    failed = true
+    puts format('%-16s %s', scenario['name'], 'no statistics, the simulation did not finish')
+    warn output
+    next
+  end
+
+  result = 'ok'
+
+  unless status.success?
+    failed = true
+    result = output.lines.find { |l| l.include?('Budget exceeded') }&.strip || "exit status #{status.exitstatus}"
+  end
+
+  record_budgets(scenario, statistics) if record && status.success?
+
+  puts format('%-16s %10s %8s %12s %12s %10s  %s', scenario['name'], statistics['wallTime'],
+              statistics['roundsToDecision'], statistics['messagesPerDecision'], statistics['transmissions'],
+              statistics['peakHeapMB'], result)
+  puts '    ' + MESSAGE_KINDS.map { |kind| "#{kind}=#{statistics[kind]}" }.join(' ')
+end
+
+File.write(SCENARIOS_FILE, table.to_csv) if record
+
+exit(1) if failed